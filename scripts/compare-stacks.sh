@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Runs the same load against the servlet application and then the reactive one (WebFlux + R2DBC, -Preactive),
+# each with slow-upload clients in the mix, and prints both reports.
+# Usage: scripts/compare-stacks.sh [concurrency] [duration-seconds] [vehicles] [slow-clients] [slow-body-seconds]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-64}
+DURATION=${2:-30}
+VEHICLES=${3:-10000}
+SLOW_CLIENTS=${4:-1000}
+SLOW_BODY_SECONDS=${5:-10}
+PORT=${PORT:-18080}
+
+if [ "$(ulimit -n)" != unlimited ] && [ "$(ulimit -n)" -lt $((SLOW_CLIENTS * 2 + 1024)) ]; then
+    echo "WARNING: ulimit -n is $(ulimit -n); $SLOW_CLIENTS slow clients need about $((SLOW_CLIENTS * 2 + 1024))." >&2
+fi
+
+mvn -B -q package -DskipTests
+mvn -B -q -Preactive package -DskipTests
+mvn -B -q -Ploadtest test-compile
+
+run() {
+    local label=$1 jar=$2
+    # One load generator is one client: rate limits would cap it long before the stack does
+    java -jar "$jar" --server.port="$PORT" --apollo.ratelimit.enabled=false > "target/$label.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null' EXIT
+    for _ in $(seq 1 90); do
+        curl -s -o /dev/null "http://localhost:$PORT/vehicle?limit=1" && break
+        sleep 1
+    done
+    echo "[$label] threads after startup: $(ls /proc/$pid/task 2>/dev/null | wc -l)"
+    mvn -B -q -Ploadtest exec:exec -Dload.args="--url=http://localhost:$PORT --concurrency=$CONCURRENCY --duration=$DURATION --vehicles=$VEHICLES --slow-clients=$SLOW_CLIENTS --slow-body-seconds=$SLOW_BODY_SECONDS --mix=get:80,list:10,put:10 --label=$label"
+    echo "[$label] threads after the run: $(ls /proc/$pid/task 2>/dev/null | wc -l)"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run servlet target/apollo2-1.0.0.jar
+run reactive target/reactive/apollo2-reactive-1.0.0.jar
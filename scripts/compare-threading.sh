@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Runs the same load against the app on platform threads and then on virtual threads and prints both reports.
+# Usage: scripts/compare-threading.sh [concurrency] [duration-seconds] [vehicles]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-256}
+DURATION=${2:-30}
+VEHICLES=${3:-10000}
+PORT=${PORT:-18080}
+JAR=target/apollo2-1.0.0.jar
+
+if ! java -version 2>&1 | grep -Eq 'version "(2[1-9]|[3-9][0-9])'; then
+    echo "WARNING: virtual threads need a Java 21+ runtime; the virtual run will fall back to platform threads." >&2
+fi
+
+mvn -B -q package -DskipTests
+mvn -B -q -Ploadtest test-compile
+
+run() {
+    local label=$1 virtual=$2
+    # One load generator is one client: rate limits would cap it long before the threads do
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" --apollo.ratelimit.enabled=false > "target/$label.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null' EXIT
+    for _ in $(seq 1 60); do
+        curl -s -o /dev/null "http://localhost:$PORT/vehicle?limit=1" && break
+        sleep 1
+    done
+    mvn -B -q -Ploadtest exec:exec -Dload.args="--url=http://localhost:$PORT --concurrency=$CONCURRENCY --duration=$DURATION --vehicles=$VEHICLES --mix=get:80,list:10,put:10 --label=$label"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run platform-threads false
+run virtual-threads true
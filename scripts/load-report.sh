@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Boots the app on embedded H2, seeds it and runs the load generator in src/loadtest/java against it, writing
+# $OUT/<label>.csv. With BASELINE=<earlier report> it also prints the change per route, e.g. to compare a branch
+# with main: run this on main with label main, copy target/load/main.csv somewhere safe, then run it on the branch
+# with BASELINE pointing at the copy. Export SPRING_DATASOURCE_URL, SPRING_DATASOURCE_USERNAME and
+# SPRING_DATASOURCE_PASSWORD to run against a local PostgreSQL (database_config.txt) instead.
+# APP_ARGS adds application arguments, e.g. APP_ARGS=--apollo.write-behind.enabled=true.
+# Extra arguments go to the load generator and override the defaults below (last one wins).
+# Usage: scripts/load-report.sh <label> [--rate=500] [--concurrency=64] [--mix=get:70,...] ...
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+LABEL=${1:?usage: scripts/load-report.sh <label> [load generator arguments]}
+shift
+PORT=${PORT:-18080}
+OUT=${OUT:-target/load}
+JAR=target/apollo2-1.0.0.jar
+
+mvn -B -q package -DskipTests
+mvn -B -q -Ploadtest test-compile
+mkdir -p "$OUT"
+
+# One load generator is one client: rate limits would cap it long before the server does
+java -jar "$JAR" --server.port="$PORT" --apollo.ratelimit.enabled=false ${APP_ARGS:-} > "$OUT/$LABEL.log" 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null' EXIT
+until curl -s -o /dev/null "http://localhost:$PORT/vehicle?limit=1"; do
+    kill -0 "$PID" 2>/dev/null || { echo "The app did not start, see $OUT/$LABEL.log" >&2; exit 1; }
+    sleep 1
+done
+
+ARGS="--url=http://localhost:$PORT --rate=200 --concurrency=64 --duration=60 --warmup=10 --vehicles=10000"
+ARGS="$ARGS --label=$LABEL --report=$OUT/$LABEL.csv${BASELINE:+ --baseline=$BASELINE} $*"
+mvn -B -q -Ploadtest exec:exec -Dload.args="$ARGS"
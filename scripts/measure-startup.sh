@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+# Starts the servlet app in four variants, RUNS times each, and prints the medians of: the startup time Spring
+# logs, the time from launch until the first GET /vehicle/{vin} is answered (what an autoscaled instance adds
+# before it can serve; lazy beans are created by that request), and the RSS right after it.
+#   default       java -jar target/apollo2-1.0.0.jar
+#   lean          the lean profile: no Hibernate, lazy initialization
+#   lean+cds      lean from the unpacked jar with an AppCDS archive
+#   lean+aot+cds  the mvn -Paot jar (bean definitions generated at build time), unpacked, with an AppCDS archive
+# Needs Linux (/proc) for RSS. Raw numbers and logs are left in target/startup.
+# Usage: scripts/measure-startup.sh [runs]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+OUT=target/startup
+MAIN=com.apollo.Apollo2Application
+
+mvn -B -q package -DskipTests
+mvn -B -q -Paot package -DskipTests
+rm -rf "$OUT"
+mkdir -p "$OUT"
+
+# Unpacks a Boot jar and prints its classpath: the application classes repacked as one jar, then the libraries in
+# BOOT-INF/classpath.idx order. CDS only archives classes loaded from plain jars (not nested jars or non-empty
+# directories), and only uses the archive with the classpath it was created with.
+unpack() {
+    local jar=$1 dir=$2
+    mkdir -p "$dir"
+    (cd "$dir" && jar -xf "$OLDPWD/$jar")
+    jar -cf "$dir/application.jar" -C "$dir/BOOT-INF/classes" .
+    { echo "$PWD/$dir/application.jar"; sed -n 's|^- "\(.*\)"$|'"$PWD/$dir"'/\1|p' "$dir/BOOT-INF/classpath.idx"; } | paste -sd: -
+}
+
+# A training run that exits once the context is refreshed, dumping the classes it loaded into the archive
+train() {
+    local archive=$1
+    shift
+    java -XX:ArchiveClassesAtExit="$archive" -Dspring.context.exit=onRefresh "$@" > "$archive.log" 2>&1
+}
+
+measure() {
+    local label=$1
+    shift
+    for run in $(seq 1 "$RUNS"); do
+        local log="$OUT/$label-$run.log" start pid
+        start=$(date +%s%N)
+        "$@" --server.port="$PORT" > "$log" 2>&1 &
+        pid=$!
+        trap 'kill $pid 2>/dev/null' EXIT
+        until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/vehicle/STARTUP")" != 000 ]; do
+            kill -0 "$pid" 2>/dev/null || { echo "$label did not start, see $log" >&2; exit 1; }
+            sleep 0.05
+        done
+        local first=$(( ($(date +%s%N) - start) / 1000000 ))
+        local started rss
+        started=$(sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' "$log")
+        rss=$(awk '/^VmRSS/ {print int($2 / 1024)}' "/proc/$pid/status")
+        echo "$label $started $first $rss" >> "$OUT/results"
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        trap - EXIT
+    done
+}
+
+median() {
+    sort -n | awk '{v[NR] = $1} END {print v[int((NR + 1) / 2)]}'
+}
+
+LEAN_CP=$(unpack target/apollo2-1.0.0.jar "$OUT/lean")
+train "$OUT/lean/app.jsa" -cp "$LEAN_CP" "$MAIN" --spring.profiles.active=lean
+AOT_CP=$(unpack target/aot/apollo2-aot-1.0.0.jar "$OUT/aot")
+train "$OUT/aot/app.jsa" -Dspring.aot.enabled=true -cp "$AOT_CP" "$MAIN" --spring.profiles.active=lean
+
+measure default java -jar target/apollo2-1.0.0.jar
+measure lean java -jar target/apollo2-1.0.0.jar --spring.profiles.active=lean
+measure lean+cds java -XX:SharedArchiveFile="$OUT/lean/app.jsa" -cp "$LEAN_CP" "$MAIN" --spring.profiles.active=lean
+measure lean+aot+cds java -XX:SharedArchiveFile="$OUT/aot/app.jsa" -Dspring.aot.enabled=true -cp "$AOT_CP" "$MAIN" --spring.profiles.active=lean
+
+printf '%-14s %12s %20s %8s\n' variant started-s first-response-ms rss-mb
+for label in default lean lean+cds lean+aot+cds; do
+    printf '%-14s %12s %20s %8s\n' "$label" \
+        "$(awk -v l="$label" '$1 == l {print $2}' "$OUT/results" | median)" \
+        "$(awk -v l="$label" '$1 == l {print $3}' "$OUT/results" | median)" \
+        "$(awk -v l="$label" '$1 == l {print $4}' "$OUT/results" | median)"
+done
@@ -0,0 +1,72 @@
+package com.apollo.benchmark;
+
+import com.apollo.Apollo2Application;
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.Vehicle;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application against a private in-memory H2 database for a benchmark trial and builds test data.
+ */
+public final class BenchmarkApplication {
+
+    private static final String[] MANUFACTURERS = {"Toyota", "Honda", "Ford", "Tesla", "BMW", "Kia", "Subaru", "Volvo"};
+    private static final String[] FUEL_TYPES = {"gas", "diesel", "hybrid", "electric"};
+    private static final String DESCRIPTION = "Certified pre-owned, one owner, full service history, "
+            + "new tires and brakes, heated seats, navigation, backup camera, remote start, tow package. ".repeat(2);
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(Apollo2Application.class)
+                .web(webApplicationType)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "server.port=0",
+                        "logging.level.root=ERROR")
+                // As arguments, not default properties: those lose to application.properties
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public static String vin(int i) {
+        return String.format("BENCH%012d", i);
+    }
+
+    public static Vehicle vehicle(int i) {
+        return new Vehicle(vin(i),
+                MANUFACTURERS[i % MANUFACTURERS.length],
+                DESCRIPTION,
+                80 + i % 400,
+                "Model " + (i % 50),
+                1995 + i % 30,
+                BigDecimal.valueOf(500_000 + (i * 7919L) % 9_000_000, 2),
+                FUEL_TYPES[i % FUEL_TYPES.length]);
+    }
+
+    public static List<Vehicle> vehicles(int from, int count) {
+        List<Vehicle> vehicles = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            vehicles.add(vehicle(i));
+        }
+        return vehicles;
+    }
+
+    public static void seed(VehicleDAO vehicleDAO, int rows) {
+        for (int from = 0; from < rows; from += 1000) {
+            vehicleDAO.insertVehicles(vehicles(from, Math.min(1000, rows - from)), false);
+        }
+    }
+}
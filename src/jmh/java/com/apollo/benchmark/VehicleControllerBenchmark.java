@@ -0,0 +1,85 @@
+package com.apollo.benchmark;
+
+import com.apollo.dao.VehicleDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * End-to-end request throughput through the DispatcherServlet, Jackson and VehicleDAO on embedded H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VehicleControllerBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private ObjectMapper objectMapper;
+    private AtomicInteger nextVin;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        BenchmarkApplication.seed(context.getBean(VehicleDAO.class), rows);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        objectMapper = context.getBean(ObjectMapper.class);
+        nextVin = new AtomicInteger(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getVehicleByVin() throws Exception {
+        String vin = BenchmarkApplication.vin(ThreadLocalRandom.current().nextInt(rows));
+        return mockMvc.perform(get("/vehicle/{vin}", vin)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createVehicle() throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(BenchmarkApplication.vehicle(nextVin.getAndIncrement()));
+        return mockMvc.perform(post("/vehicle").contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getVehiclePage() throws Exception {
+        String after = BenchmarkApplication.vin(ThreadLocalRandom.current().nextInt(rows));
+        return mockMvc.perform(get("/vehicle").param("after", after).param("limit", "100")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult searchVehicles() throws Exception {
+        return mockMvc.perform(get("/vehicle/search")
+                .param("manufacturerName", "Toyota")
+                .param("minModelYear", "2000")
+                .param("maxModelYear", "2010")
+                .param("limit", "100")).andReturn();
+    }
+}
@@ -0,0 +1,87 @@
+package com.apollo.benchmark;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VehicleDAO writes and full scans against embedded H2 seeded with {@code rows} vehicles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VehicleDAOBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private VehicleDAO vehicleDAO;
+    private AtomicInteger nextVin;
+    private JsonFactory jsonFactory;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        vehicleDAO = context.getBean(VehicleDAO.class);
+        BenchmarkApplication.seed(vehicleDAO, rows);
+        nextVin = new AtomicInteger(rows);
+        jsonFactory = context.getBean(ObjectMapper.class).getFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Vehicle insertVehicle() {
+        return vehicleDAO.insertVehicle(BenchmarkApplication.vehicle(nextVin.getAndIncrement()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchItemResult.Status> insertVehiclesBatch() {
+        return vehicleDAO.insertVehicles(BenchmarkApplication.vehicles(nextVin.getAndAdd(BATCH), BATCH), false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<CompactVehicle> getAllVehicles() {
+        return vehicleDAO.getAllVehicles();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void streamAllVehicles() throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            vehicleDAO.streamAllVehicles(generator);
+        }
+    }
+}
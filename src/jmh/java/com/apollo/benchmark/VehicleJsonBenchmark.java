@@ -0,0 +1,76 @@
+package com.apollo.benchmark;
+
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of Vehicle and Vehicle lists with the same ObjectMapper defaults Spring Boot uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VehicleJsonBenchmark {
+
+    private static final TypeReference<List<Vehicle>> VEHICLE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private Vehicle vehicle;
+    private List<Vehicle> vehicles;
+    private List<CompactVehicle> compactVehicles;
+    private byte[] vehicleJson;
+    private byte[] vehiclesJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        vehicle = BenchmarkApplication.vehicle(42);
+        vehicles = BenchmarkApplication.vehicles(0, listSize);
+        compactVehicles = vehicles.stream().map(CompactVehicle::of).toList();
+        vehicleJson = objectMapper.writeValueAsBytes(vehicle);
+        vehiclesJson = objectMapper.writeValueAsBytes(vehicles);
+    }
+
+    @Benchmark
+    public byte[] serializeVehicle() throws IOException {
+        return objectMapper.writeValueAsBytes(vehicle);
+    }
+
+    @Benchmark
+    public byte[] serializeVehicleList() throws IOException {
+        return objectMapper.writeValueAsBytes(vehicles);
+    }
+
+    @Benchmark
+    public byte[] serializeCompactVehicleList() throws IOException {
+        return objectMapper.writeValueAsBytes(compactVehicles);
+    }
+
+    @Benchmark
+    public Vehicle deserializeVehicle() throws IOException {
+        return objectMapper.readValue(vehicleJson, Vehicle.class);
+    }
+
+    @Benchmark
+    public List<Vehicle> deserializeVehicleList() throws IOException {
+        return objectMapper.readValue(vehiclesJson, VEHICLE_LIST);
+    }
+}
@@ -0,0 +1,53 @@
+package com.apollo.benchmark;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VehicleDAO.getVehicleByVin over random vins, with and without the read-through cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VehicleLookupBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private VehicleDAO vehicleDAO;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "apollo.vehicle.cache.enabled=" + cacheEnabled);
+        vehicleDAO = context.getBean(VehicleDAO.class);
+        BenchmarkApplication.seed(vehicleDAO, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Vehicle getVehicleByVin() {
+        return vehicleDAO.getVehicleByVin(BenchmarkApplication.vin(ThreadLocalRandom.current().nextInt(rows)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.apollo.benchmark;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledged updates per second over {@code vins} hot vehicles, applied directly or through the write-behind
+ * buffer (logged, flushed every 200 ms by the background flusher, whose work is included).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class VehicleWriteBehindBenchmark {
+
+    @Param({"direct", "write-behind"})
+    public String mode;
+
+    @Param({"1000"})
+    public int vins;
+
+    // Only affects write-behind: with fsync=false an acknowledged update survives a process crash but not a power loss
+    @Param({"true", "false"})
+    public boolean fsync;
+
+    private ConfigurableApplicationContext context;
+    private VehicleDAO vehicleDAO;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("write-behind-bench");
+        context = BenchmarkApplication.start(WebApplicationType.NONE,
+                "apollo.write-behind.enabled=" + mode.equals("write-behind"),
+                "apollo.write-behind.directory=" + directory,
+                "apollo.write-behind.fsync=" + fsync);
+        vehicleDAO = context.getBean(VehicleDAO.class);
+        if (vehicleDAO.hasWriteBuffer() != mode.equals("write-behind")) {
+            throw new IllegalStateException("Write-behind mode did not take effect");
+        }
+        BenchmarkApplication.seed(vehicleDAO, vins);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Vehicle updateVehicle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(vins);
+        Vehicle vehicle = BenchmarkApplication.vehicle(i);
+        vehicle.setHorsePower(80 + random.nextInt(400));
+        return vehicleDAO.hasWriteBuffer() ? vehicleDAO.bufferUpdate(vehicle.getVin(), vehicle) : vehicleDAO.updateVehicle(vehicle.getVin(), vehicle);
+    }
+}
@@ -0,0 +1,77 @@
+package com.apollo.dao;
+
+import com.apollo.benchmark.BenchmarkApplication;
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.Vehicle;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one row into a Vehicle (by column name) or a CompactVehicle (by position), measured on an in-memory ResultSet so no JDBC I/O is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VehicleRowMapperBenchmark {
+
+    private final VehicleDAO vehicleDAO = new VehicleDAO();
+    private SimpleResultSet resultSet;
+    private SimpleResultSet compactResultSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Vehicle vehicle = BenchmarkApplication.vehicle(42);
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("vin", Types.VARCHAR, 17, 0);
+        resultSet.addColumn("manufacturer_name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("description", Types.VARCHAR, Integer.MAX_VALUE, 0);
+        resultSet.addColumn("horse_power", Types.INTEGER, 10, 0);
+        resultSet.addColumn("model_name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("model_year", Types.INTEGER, 10, 0);
+        resultSet.addColumn("purchase_price", Types.DECIMAL, 10, 2);
+        resultSet.addColumn("fuel_type", Types.VARCHAR, 50, 0);
+        resultSet.addColumn("version", Types.BIGINT, 19, 0);
+        resultSet.addColumn("updated_at", Types.TIMESTAMP, 26, 6);
+        resultSet.addRow(vehicle.getVin(), vehicle.getManufacturerName(), vehicle.getDescription(), vehicle.getHorsePower(),
+                vehicle.getModelName(), vehicle.getModelYear(), vehicle.getPurchasePrice(), vehicle.getFuelType(),
+                1L, new Timestamp(System.currentTimeMillis()));
+        resultSet.next();
+
+        compactResultSet = new SimpleResultSet();
+        compactResultSet.setAutoClose(false);
+        compactResultSet.addColumn("vin", Types.VARCHAR, 17, 0);
+        compactResultSet.addColumn("manufacturer_name", Types.VARCHAR, 255, 0);
+        compactResultSet.addColumn("description", Types.VARCHAR, Integer.MAX_VALUE, 0);
+        compactResultSet.addColumn("horse_power", Types.INTEGER, 10, 0);
+        compactResultSet.addColumn("model_name", Types.VARCHAR, 255, 0);
+        compactResultSet.addColumn("model_year", Types.INTEGER, 10, 0);
+        compactResultSet.addColumn("purchase_price_cents", Types.BIGINT, 19, 0);
+        compactResultSet.addColumn("fuel_type", Types.VARCHAR, 50, 0);
+        compactResultSet.addRow(vehicle.getVin(), vehicle.getManufacturerName(), vehicle.getDescription(), vehicle.getHorsePower(),
+                vehicle.getModelName(), vehicle.getModelYear(), vehicle.getPurchasePrice().movePointRight(2).longValueExact(),
+                vehicle.getFuelType());
+        compactResultSet.next();
+    }
+
+    @Benchmark
+    public Vehicle vehicleRowMapper() throws SQLException {
+        return vehicleDAO.vehicleRowMapper.mapRow(resultSet, 0);
+    }
+
+    @Benchmark
+    public CompactVehicle compactVehicleRowMapper() throws SQLException {
+        return vehicleDAO.compactVehicleRowMapper.mapRow(compactResultSet, 0);
+    }
+}
@@ -0,0 +1,576 @@
+package com.apollo.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load generator for a running instance. Seeds {@code --vehicles} vehicles through POST /vehicle/batch (one
+ * POST /vehicle per vehicle where there is no batch route), then drives a {@code --mix} of {@link Route}s for
+ * {@code --duration} seconds after {@code --warmup} unrecorded seconds, and prints throughput and p50/p90/p99/p99.9
+ * per route from HdrHistograms. Requests slower than {@code --timeout} seconds count as errors.
+ * <p>
+ * Without {@code --rate} it is a closed loop: {@code --concurrency} clients each send their next request when the
+ * last one returns, and latencies are service times. With {@code --rate=N} requests are scheduled N per second
+ * whatever the server does, and {@code --concurrency} only caps how many are outstanding. Latency is then measured
+ * from the scheduled start, so a request that waited behind a stall is charged for the wait (coordinated omission
+ * correction); the service-time p99 is printed next to it. Scheduled requests still unsent one {@code --timeout}
+ * after the run are reported as missed, and count in the percentiles as timed-out errors of a route drawn from the
+ * mix, charged from their scheduled start to the moment the run gave up on them: under saturation they are the
+ * slowest requests, and leaving them out would flatter p99 and p99.9.
+ * <p>
+ * {@code --report=file.csv} writes the table for comparing builds, and {@code --baseline=file.csv} prints the
+ * change against an earlier report. {@code --slow-clients=N} adds N {@link SlowClients} whose PUT bodies take
+ * {@code --slow-body-seconds} to upload, to see what they cost everyone else.
+ *
+ * <pre>LoadGenerator --url=http://localhost:8080 --rate=500 --concurrency=64 --duration=30 --warmup=5 --vehicles=10000
+ *     --mix=get:70,list:5,post:10,put:10,delete:5 --report=target/load/run.csv --baseline=target/load/main.csv</pre>
+ */
+public class LoadGenerator {
+
+    /**
+     * The routes a mix can weight, by the name used in {@code --mix}.
+     */
+    public enum Route {
+        GET("get", "GET /vehicle/{vin}"),
+        LIST("list", "GET /vehicle?after=&limit=100"),
+        POST("post", "POST /vehicle"),
+        PUT("put", "PUT /vehicle/{vin}"),
+        DELETE("delete", "DELETE /vehicle/{vin}"),
+        SEARCH("search", "GET /vehicle/search"),
+        TEXT("text", "GET /vehicle/search/text"),
+        STATS("stats", "GET /vehicle/stats"),
+        LOOKUP("lookup", "POST /vehicle/lookup");
+
+        private final String key;
+        private final String label;
+
+        Route(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        static Route fromKey(String key) {
+            for (Route route : values()) {
+                if (route.key.equals(key)) {
+                    return route;
+                }
+            }
+            throw new IllegalArgumentException("Unknown route " + key);
+        }
+    }
+
+    /**
+     * The five VehicleController CRUD routes, read-heavy.
+     */
+    public static final String DEFAULT_MIX = "get:70,list:5,post:10,put:10,delete:5";
+
+    private static final int LOOKUP_VINS = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String url;
+    private final int concurrency;
+    private final int durationSeconds;
+    private final int vehicles;
+    private final Duration timeout;
+    private final int slowClients;
+    private final int slowBodySeconds;
+    private final Map<Route, Integer> mix;
+    private final double rate;
+    private final int warmupSeconds;
+    private final int[] weights;
+    private final int totalWeight;
+    // POST creates vins past the seeded ones; DELETE removes those so every run keeps the seeded vehicles
+    private final AtomicInteger nextPosted;
+    private final Queue<Integer> posted = new ConcurrentLinkedQueue<>();
+
+    public LoadGenerator(String url, int concurrency, int durationSeconds, int vehicles) {
+        this(url, concurrency, durationSeconds, vehicles, Duration.ofSeconds(10), 0, 10);
+    }
+
+    public LoadGenerator(String url, int concurrency, int durationSeconds, int vehicles, Duration timeout,
+                         int slowClients, int slowBodySeconds) {
+        this(url, concurrency, durationSeconds, vehicles, timeout, slowClients, slowBodySeconds, parseMix(DEFAULT_MIX), 0, 0);
+    }
+
+    public LoadGenerator(String url, int concurrency, int durationSeconds, int vehicles, Duration timeout,
+                         int slowClients, int slowBodySeconds, Map<Route, Integer> mix, double rate, int warmupSeconds) {
+        this.url = url;
+        this.concurrency = concurrency;
+        this.durationSeconds = durationSeconds;
+        this.vehicles = vehicles;
+        this.timeout = timeout;
+        this.slowClients = slowClients;
+        this.slowBodySeconds = slowBodySeconds;
+        this.mix = mix;
+        this.rate = rate;
+        this.warmupSeconds = warmupSeconds;
+        this.weights = new int[Route.values().length];
+        int total = 0;
+        for (Map.Entry<Route, Integer> entry : mix.entrySet()) {
+            weights[entry.getKey().ordinal()] = entry.getValue();
+            total += entry.getValue();
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one route with a positive weight");
+        }
+        this.totalWeight = total;
+        this.nextPosted = new AtomicInteger(vehicles);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        LoadGenerator generator = new LoadGenerator(
+                options.getOrDefault("url", "http://localhost:8080"),
+                Integer.parseInt(options.getOrDefault("concurrency", "64")),
+                Integer.parseInt(options.getOrDefault("duration", "30")),
+                Integer.parseInt(options.getOrDefault("vehicles", "10000")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "10"))),
+                Integer.parseInt(options.getOrDefault("slow-clients", "0")),
+                Integer.parseInt(options.getOrDefault("slow-body-seconds", "10")),
+                parseMix(options.getOrDefault("mix", DEFAULT_MIX)),
+                Double.parseDouble(options.getOrDefault("rate", "0")),
+                Integer.parseInt(options.getOrDefault("warmup", "0")));
+        generator.seed();
+        Report report = generator.run(options.getOrDefault("label", "run"));
+        report.print(System.out);
+        if (options.containsKey("report")) {
+            report.write(Path.of(options.get("report")));
+        }
+        if (options.containsKey("baseline")) {
+            report.compare(Report.read(Path.of(options.get("baseline"))), System.out);
+        }
+    }
+
+    /**
+     * Parses {@code route:weight,...}, e.g. {@value #DEFAULT_MIX}.
+     */
+    static Map<Route, Integer> parseMix(String mix) {
+        Map<Route, Integer> weights = new EnumMap<>(Route.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":", 2);
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + pair[0]);
+            }
+            weights.put(Route.fromKey(pair[0].trim()), weight);
+        }
+        return weights;
+    }
+
+    public void seed() throws IOException, InterruptedException {
+        for (int from = 0; from < vehicles; from += 1000) {
+            StringBuilder body = new StringBuilder();
+            for (int i = from; i < Math.min(from + 1000, vehicles); i++) {
+                body.append(vehicleJson(i)).append('\n');
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/vehicle/batch?upsert=true"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 404) {
+                seedOneByOne();
+                return;
+            }
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode() + ": " + response.body());
+            }
+        }
+    }
+
+    private void seedOneByOne() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < vehicles; i++) {
+            int vehicle = i;
+            executor.execute(() -> {
+                try {
+                    HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/vehicle"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(vehicleJson(vehicle)))
+                            .build(), HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 201 && response.statusCode() != 409) {
+                        System.err.println("Seeding " + vin(vehicle) + " failed with HTTP " + response.statusCode());
+                    }
+                } catch (IOException e) {
+                    System.err.println("Seeding " + vin(vehicle) + " failed: " + e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+    }
+
+    public Report run(String label) throws InterruptedException {
+        List<Worker> workers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        Schedule schedule = rate > 0 ? new Schedule(start, (long) (TimeUnit.SECONDS.toNanos(1) / rate)) : null;
+        SlowClients slow = null;
+        Thread slowThread = null;
+        if (slowClients > 0) {
+            slow = new SlowClients(url, slowClients, slowBodySeconds, vehicles, LoadGenerator::vin, LoadGenerator::vehicleJson, deadline);
+            slowThread = new Thread(slow, "slow-clients");
+            slowThread.start();
+        }
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(schedule, measureFrom, deadline);
+            workers.add(worker);
+            executor.execute(worker);
+        }
+        executor.shutdown();
+        executor.awaitTermination(warmupSeconds + durationSeconds + 60L, TimeUnit.SECONDS);
+        if (slowThread != null) {
+            slowThread.join();
+        }
+
+        Report report = new Report(label, String.format(Locale.ROOT, "%s concurrency=%d duration=%ds warmup=%ds vehicles=%d mix=%s",
+                rate > 0 ? "rate=" + rate + "/s" : "closed-loop", concurrency, durationSeconds, warmupSeconds, vehicles, formatMix()));
+        Histogram[] unsent = new Histogram[Route.values().length];
+        long[] unsentErrors = new long[unsent.length];
+        for (int route = 0; route < unsent.length; route++) {
+            unsent[route] = new Histogram(3);
+        }
+        if (schedule != null) {
+            // Slots scheduled inside the measured window that were never sent: those a worker took too late are
+            // already charged by it, those no worker took before the run gave up at deadline + timeout are here
+            long firstMeasured = (measureFrom - start + schedule.intervalNanos - 1) / schedule.intervalNanos;
+            long lastSlot = (deadline - start + schedule.intervalNanos - 1) / schedule.intervalNanos;
+            long sent = 0;
+            for (Worker worker : workers) {
+                sent += worker.sentSlots;
+            }
+            report.missed = Math.max(0, lastSlot - firstMeasured - sent);
+            long givenUp = deadline + timeout.toNanos();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (long slot = Math.max(firstMeasured, schedule.handedOut()); slot < lastSlot; slot++) {
+                int route = pickRoute(random.nextInt(totalWeight)).ordinal();
+                unsent[route].recordValue(givenUp - (start + slot * schedule.intervalNanos));
+                unsentErrors[route]++;
+            }
+        }
+        for (Route route : Route.values()) {
+            if (weights[route.ordinal()] == 0) {
+                continue;
+            }
+            Histogram latency = new Histogram(3);
+            Histogram service = new Histogram(3);
+            latency.add(unsent[route.ordinal()]);
+            long errors = unsentErrors[route.ordinal()];
+            for (Worker worker : workers) {
+                latency.add(worker.latencies[route.ordinal()]);
+                service.add(worker.serviceTimes[route.ordinal()]);
+                errors += worker.errors[route.ordinal()];
+            }
+            report.add(route, latency, service, errors, durationSeconds);
+        }
+        if (slow != null) {
+            report.footer = String.format(Locale.ROOT, "slow clients: %d connections, %ds uploads, %d completed, %d failed",
+                    slowClients, slowBodySeconds, slow.getCompleted(), slow.getFailed());
+        }
+        return report;
+    }
+
+    private String formatMix() {
+        StringBuilder formatted = new StringBuilder();
+        for (Map.Entry<Route, Integer> entry : mix.entrySet()) {
+            formatted.append(formatted.length() > 0 ? "," : "").append(entry.getKey().key).append(':').append(entry.getValue());
+        }
+        return formatted.toString();
+    }
+
+    private static String vin(int i) {
+        return String.format("LOAD%013d", i);
+    }
+
+    private static String vehicleJson(int i) {
+        return String.format(Locale.ROOT, "{\"vin\":\"%s\",\"manufacturerName\":\"%s\",\"description\":\"Load test vehicle %d\","
+                        + "\"horsePower\":%d,\"modelName\":\"Model %d\",\"modelYear\":%d,\"purchasePrice\":%d.%02d,\"fuelType\":\"%s\"}",
+                vin(i), i % 2 == 0 ? "Toyota" : "Honda", i, 80 + i % 400, i % 50, 1995 + i % 30, 5000 + i % 90000, i % 100,
+                i % 3 == 0 ? "electric" : "gas");
+    }
+
+    private Route pickRoute(int roll) {
+        int cumulative = 0;
+        for (Route route : Route.values()) {
+            cumulative += weights[route.ordinal()];
+            if (roll < cumulative) {
+                return route;
+            }
+        }
+        return Route.GET;
+    }
+
+    private HttpRequest request(Route route, ThreadLocalRandom random) {
+        int i = random.nextInt(vehicles);
+        HttpRequest.Builder builder = switch (route) {
+            case GET -> HttpRequest.newBuilder(URI.create(url + "/vehicle/" + vin(i))).GET();
+            case LIST -> HttpRequest.newBuilder(URI.create(url + "/vehicle?limit=100&after=" + vin(i))).GET();
+            case POST -> {
+                int created = nextPosted.getAndIncrement();
+                posted.add(created);
+                yield HttpRequest.newBuilder(URI.create(url + "/vehicle"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(vehicleJson(created)));
+            }
+            case PUT -> HttpRequest.newBuilder(URI.create(url + "/vehicle/" + vin(i)))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(vehicleJson(i)));
+            case DELETE -> {
+                Integer created = posted.poll();
+                // Nothing posted yet: delete a vin that never existed rather than a seeded one
+                yield HttpRequest.newBuilder(URI.create(url + "/vehicle/" + vin(created != null ? created : -1 - i))).DELETE();
+            }
+            case SEARCH -> HttpRequest.newBuilder(URI.create(url + "/vehicle/search?manufacturerName=" + (i % 2 == 0 ? "Toyota" : "Honda")
+                    + "&minModelYear=" + (1995 + i % 30) + "&sort=purchasePrice&order=desc&limit=20")).GET();
+            case TEXT -> HttpRequest.newBuilder(URI.create(url + "/vehicle/search/text?q=model%20" + i % 50 + "&limit=20")).GET();
+            case STATS -> HttpRequest.newBuilder(URI.create(url + "/vehicle/stats?groupBy=manufacturerName,modelYear")).GET();
+            case LOOKUP -> {
+                StringBuilder body = new StringBuilder("[");
+                for (int n = 0; n < LOOKUP_VINS; n++) {
+                    body.append(n > 0 ? "," : "").append('"').append(vin(random.nextInt(vehicles))).append('"');
+                }
+                yield HttpRequest.newBuilder(URI.create(url + "/vehicle/lookup"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()));
+            }
+        };
+        return builder.timeout(timeout).build();
+    }
+
+    /**
+     * Start times for a fixed arrival rate: slot n is due {@code n * intervalNanos} after the start, handed out
+     * once each to whichever worker is free.
+     */
+    private static class Schedule {
+
+        private final long start;
+        private final long intervalNanos;
+        private final AtomicLong next = new AtomicLong();
+
+        Schedule(long start, long intervalNanos) {
+            this.start = start;
+            this.intervalNanos = Math.max(1, intervalNanos);
+        }
+
+        long nextStart() {
+            return start + next.getAndIncrement() * intervalNanos;
+        }
+
+        /**
+         * Slots handed out so far; every later one was never taken.
+         */
+        long handedOut() {
+            return next.get();
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final Schedule schedule;
+        private final long measureFrom;
+        private final long deadline;
+        private final Histogram[] latencies = new Histogram[Route.values().length];
+        private final Histogram[] serviceTimes = new Histogram[Route.values().length];
+        private final long[] errors = new long[Route.values().length];
+        private long sentSlots;
+
+        Worker(Schedule schedule, long measureFrom, long deadline) {
+            this.schedule = schedule;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            for (int route = 0; route < latencies.length; route++) {
+                latencies[route] = new Histogram(3);
+                serviceTimes[route] = new Histogram(3);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (true) {
+                long now = System.nanoTime();
+                long intended = now;
+                if (schedule != null) {
+                    intended = schedule.nextStart();
+                    if (intended >= deadline) {
+                        return;
+                    }
+                    while ((now = System.nanoTime()) < intended) {
+                        LockSupport.parkNanos(intended - now);
+                    }
+                }
+                Route route = pickRoute(random.nextInt(totalWeight));
+                // Scheduled requests still due are sent after the deadline, for up to one timeout
+                if (now >= (schedule != null ? deadline + timeout.toNanos() : deadline)) {
+                    if (schedule != null && intended >= measureFrom) {
+                        // Taken but never sent: a timed-out request as far as its client is concerned
+                        latencies[route.ordinal()].recordValue(now - intended);
+                        errors[route.ordinal()]++;
+                    }
+                    return;
+                }
+                HttpRequest request = request(route, random);
+                long sent = System.nanoTime();
+                boolean error;
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    error = response.statusCode() >= 400;
+                } catch (IOException e) {
+                    error = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long end = System.nanoTime();
+                if (intended >= measureFrom) {
+                    latencies[route.ordinal()].recordValue(end - intended);
+                    serviceTimes[route.ordinal()].recordValue(end - sent);
+                    if (error) {
+                        errors[route.ordinal()]++;
+                    }
+                    sentSlots++;
+                }
+            }
+        }
+    }
+
+    /**
+     * One row per route in milliseconds. The CSV form is what {@code --report} writes and {@code --baseline} reads.
+     * Requests, errors and percentiles cover every measured request scheduled, missed ones included; req/s counts
+     * the requests that were answered.
+     */
+    static class Report {
+
+        private static final String HEADER = "route,requests,errors,rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p99_ms";
+
+        private final String label;
+        private final String settings;
+        private final Map<String, double[]> rows = new LinkedHashMap<>();
+        private long missed;
+        private String footer;
+
+        Report(String label, String settings) {
+            this.label = label;
+            this.settings = settings;
+        }
+
+        void add(Route route, Histogram latency, Histogram service, long errors, int seconds) {
+            long count = latency.getTotalCount();
+            rows.put(route.label, new double[]{count, errors, service.getTotalCount() / (double) seconds,
+                    millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                    count == 0 ? 0 : latency.getMaxValue() / 1e6, millis(service, 99)});
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        void print(PrintStream out) {
+            out.printf(Locale.ROOT, "%n[%s] %s%n", label, settings);
+            out.printf(Locale.ROOT, "%-32s %9s %7s %9s %9s %9s %9s %9s %9s %11s%n", "route", "requests", "errors", "req/s",
+                    "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+            for (Map.Entry<String, double[]> row : rows.entrySet()) {
+                double[] v = row.getValue();
+                out.printf(Locale.ROOT, "%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f%n", row.getKey(),
+                        (long) v[0], (long) v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8]);
+            }
+            if (missed > 0) {
+                out.printf(Locale.ROOT, "missed: %d scheduled requests were never sent and count as timed-out errors; "
+                        + "the rate is above what this run sustained%n", missed);
+            }
+            if (footer != null) {
+                out.println(footer);
+            }
+        }
+
+        void write(Path file) throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add("# " + label + " " + settings + (missed > 0 ? " missed=" + missed : ""));
+            lines.add(HEADER);
+            for (Map.Entry<String, double[]> row : rows.entrySet()) {
+                StringBuilder line = new StringBuilder(row.getKey());
+                for (double value : row.getValue()) {
+                    line.append(',').append(String.format(Locale.ROOT, "%.3f", value));
+                }
+                lines.add(line.toString());
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, lines);
+        }
+
+        static Report read(Path file) throws IOException {
+            Report report = new Report(file.getFileName().toString(), "");
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith("#") || line.equals(HEADER) || line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                double[] values = new double[fields.length - 1];
+                for (int i = 1; i < fields.length; i++) {
+                    values[i - 1] = Double.parseDouble(fields[i]);
+                }
+                report.rows.put(fields[0], values);
+            }
+            return report;
+        }
+
+        /**
+         * Prints req/s, p50, p99 and p99.9 of this report beside a baseline, with the change in percent.
+         */
+        void compare(Report baseline, PrintStream out) {
+            out.printf(Locale.ROOT, "%nchange against %s%n", baseline.label);
+            out.printf(Locale.ROOT, "%-32s %20s %20s %20s %20s%n", "route", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+            for (Map.Entry<String, double[]> row : rows.entrySet()) {
+                double[] before = baseline.rows.get(row.getKey());
+                if (before == null) {
+                    continue;
+                }
+                double[] after = row.getValue();
+                out.printf(Locale.ROOT, "%-32s %20s %20s %20s %20s%n", row.getKey(), change(before[2], after[2]),
+                        change(before[3], after[3]), change(before[5], after[5]), change(before[6], after[6]));
+            }
+        }
+
+        private static String change(double before, double after) {
+            String percent = before == 0 ? "" : String.format(Locale.ROOT, " (%+.0f%%)", (after - before) * 100 / before);
+            return String.format(Locale.ROOT, "%.1f->%.1f%s", before, after, percent);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.apollo.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps {@code count} connections busy with PUT /vehicle/{vin} requests whose body trickles in over
+ * {@code bodySeconds}, like clients on a poor mobile link. One thread drives every connection: each tick it
+ * writes the next slice of every body, then collects finished responses and starts the next request on a new
+ * connection. A server that parks a thread per request body runs out of threads; one that reads bodies
+ * asynchronously does not notice.
+ */
+class SlowClients implements Runnable {
+
+    private static final long TICK_MILLIS = 100;
+
+    private final InetSocketAddress address;
+    private final String host;
+    private final int count;
+    private final long bodySeconds;
+    private final int vehicles;
+    private final IntFunction<String> vinOf;
+    private final IntFunction<String> jsonOf;
+    private final long deadline;
+
+    private long completed;
+    private long failed;
+
+    SlowClients(String url, int count, long bodySeconds, int vehicles, IntFunction<String> vinOf, IntFunction<String> jsonOf, long deadline) {
+        URI uri = URI.create(url);
+        this.address = new InetSocketAddress(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 80);
+        this.host = uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        this.count = count;
+        this.bodySeconds = bodySeconds;
+        this.vehicles = vehicles;
+        this.vinOf = vinOf;
+        this.jsonOf = jsonOf;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+        List<Connection> connections = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                connections.add(new Connection(i % vehicles));
+            }
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < connections.size(); i++) {
+                    Connection connection = connections.get(i);
+                    try {
+                        if (connection.tick()) {
+                            completed++;
+                            connection.close();
+                            connections.set(i, new Connection(connection.vehicle));
+                        }
+                    } catch (IOException e) {
+                        failed++;
+                        connection.close();
+                        connections.set(i, new Connection(connection.vehicle));
+                    }
+                }
+                Thread.sleep(TICK_MILLIS);
+            }
+        } catch (IOException e) {
+            failed++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.forEach(Connection::close);
+        }
+    }
+
+    long getCompleted() {
+        return completed;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    private class Connection {
+
+        private final int vehicle;
+        private final SocketChannel channel;
+        private final ByteBuffer request;
+        private final int sliceBytes;
+        private final ByteBuffer response = ByteBuffer.allocate(1024);
+        private final ByteBuffer discard = ByteBuffer.allocate(1024);
+        private final int bodyStart;
+
+        Connection(int vehicle) throws IOException {
+            this.vehicle = vehicle;
+            byte[] body = jsonOf.apply(vehicle).getBytes(StandardCharsets.UTF_8);
+            byte[] head = ("PUT /vehicle/" + vinOf.apply(vehicle) + " HTTP/1.1\r\nHost: " + host + "\r\n" +
+                           "Content-Type: application/json\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            request = ByteBuffer.allocate(head.length + body.length).put(head).put(body).flip();
+            bodyStart = head.length;
+            long ticks = Math.max(1, TimeUnit.SECONDS.toMillis(bodySeconds) / TICK_MILLIS);
+            sliceBytes = (int) Math.max(1, (body.length + ticks - 1) / ticks);
+            channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+        }
+
+        /**
+         * Sends the headers at once and the body one slice per tick; true once the server has answered 2xx and
+         * closed the connection.
+         */
+        boolean tick() throws IOException {
+            if (request.hasRemaining()) {
+                int end = Math.min(request.limit(), Math.max(bodyStart, request.position()) + sliceBytes);
+                ByteBuffer slice = request.duplicate().limit(end);
+                channel.write(slice);
+                request.position(slice.position());
+                return false;
+            }
+            int read;
+            // Only the status line matters; anything past the first KB is read and dropped
+            while ((read = channel.read(response.hasRemaining() ? response : discard.clear())) > 0) {
+                // keep draining
+            }
+            if (read < 0) {
+                String status = new String(response.array(), 0, Math.min(12, response.position()), StandardCharsets.US_ASCII);
+                if (!status.startsWith("HTTP/1.1 2")) {
+                    throw new IOException("Unexpected response " + status);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // closing a connection the server already dropped
+            }
+        }
+    }
+}
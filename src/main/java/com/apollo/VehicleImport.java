@@ -0,0 +1,54 @@
+package com.apollo;
+
+import com.apollo.importer.VehicleImporter;
+import com.apollo.model.ImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line import of a CSV or NDJSON file, without starting the web server:
+ * {@code java -cp apollo2.jar -Dloader.main=com.apollo.VehicleImport org.springframework.boot.loader.launch.PropertiesLauncher
+ * inventory.csv [--upsert] [--spring.datasource.url=...]}. Progress goes to stderr and the final report to stdout as JSON.
+ */
+public class VehicleImport {
+
+    public static void main(String[] args) throws Exception {
+        Path file = null;
+        boolean upsert = false;
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--upsert")) {
+                upsert = true;
+            } else if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else {
+                file = Path.of(arg);
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: VehicleImport <file.csv|file.ndjson> [--upsert] [--spring.property=value ...]");
+            System.exit(2);
+        }
+
+        int exitCode;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Apollo2Application.class)
+                .web(WebApplicationType.NONE)
+                .run(springArgs.toArray(String[]::new));
+             InputStream in = Files.newInputStream(file)) {
+            VehicleImporter importer = context.getBean(VehicleImporter.class);
+            ImportReport report = importer.importVehicles(in, VehicleImporter.Format.fromFileName(file.toString()), upsert,
+                    progress -> System.err.println(progress));
+            System.out.println(context.getBean(ObjectMapper.class).writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            exitCode = report.getFailed() > 0 ? 1 : 0;
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,40 @@
+package com.apollo.config;
+
+import com.apollo.dao.VehicleArchive;
+import com.apollo.model.ArchivedYear;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/archive}: the archived model years, and {@code POST /actuator/archive} with {@code before} to
+ * archive every model year older than it now, without waiting for {@code apollo.archive.interval}. {@code before}
+ * never goes past the years kept by {@code apollo.archive.keep-model-years}. Not exposed by default: the
+ * {@code management} profile serves it on a separate management port.
+ */
+@Component
+@Endpoint(id = "archive")
+public class ArchiveEndpoint {
+
+    private final VehicleArchive vehicleArchive;
+
+    public ArchiveEndpoint(VehicleArchive vehicleArchive) {
+        this.vehicleArchive = vehicleArchive;
+    }
+
+    @ReadOperation
+    public List<ArchivedYear> years() {
+        return vehicleArchive.getYears();
+    }
+
+    /**
+     * Returns the years archived by this call; see {@link VehicleArchive#archiveBefore}.
+     */
+    @WriteOperation
+    public List<ArchivedYear> archive(int before) {
+        return vehicleArchive.archiveBefore(before);
+    }
+}
@@ -0,0 +1,85 @@
+package com.apollo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DatabaseConfig {
+
+    /**
+     * Wraps the pooled DataSource in a {@link BulkheadDataSource}. On by default whenever virtual threads are.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "apollo.db.bulkhead.enabled", havingValue = "true")
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    int maxConcurrent = environment.getProperty("apollo.db.bulkhead.max-concurrent", Integer.class, 10);
+                    Duration acquireTimeout = environment.getProperty("apollo.db.bulkhead.acquire-timeout", Duration.class, Duration.ofSeconds(2));
+                    return new BulkheadDataSource(dataSource, maxConcurrent, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * One Hikari pool per {@code apollo.db.replica.urls} entry, read-only and wrapped in the bulkhead when it is on.
+     * Pools connect lazily, so a replica that is down at startup is only quarantined, never fatal.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "apollo.db.replica.urls")
+    public ReplicaRouter replicaRouter(DataSource dataSource, Environment environment) {
+        String[] urls = environment.getProperty("apollo.db.replica.urls", String[].class, new String[0]);
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(environment.getProperty("apollo.db.replica.username", environment.getProperty("spring.datasource.username", "sa")));
+            replica.setPassword(environment.getProperty("apollo.db.replica.password", environment.getProperty("spring.datasource.password", "")));
+            replica.setMaximumPoolSize(environment.getProperty("apollo.db.replica.pool-size", Integer.class, 10));
+            replica.setConnectionTimeout(environment.getProperty("apollo.db.replica.connection-timeout", Duration.class, Duration.ofSeconds(1)).toMillis());
+            replica.setReadOnly(true);
+            replica.setInitializationFailTimeout(-1);
+            if (environment.getProperty("apollo.db.bulkhead.enabled", Boolean.class, false)) {
+                replicas.add(new BulkheadDataSource(replica,
+                        environment.getProperty("apollo.db.bulkhead.max-concurrent", Integer.class, 10),
+                        environment.getProperty("apollo.db.bulkhead.acquire-timeout", Duration.class, Duration.ofSeconds(2))));
+            } else {
+                replicas.add(replica);
+            }
+        }
+        return new ReplicaRouter(dataSource, replicas,
+                environment.getProperty("apollo.db.replica.quarantine", Duration.class, Duration.ofSeconds(10)),
+                environment.getProperty("apollo.db.read-your-writes-window", Duration.class, Duration.ofSeconds(5)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "apollo.db.replica.urls")
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRouter replicaRouter, Environment environment) {
+        return new ReadYourWritesFilter(replicaRouter,
+                environment.getProperty("apollo.db.read-your-writes-window", Duration.class, Duration.ofSeconds(5)));
+    }
+
+    /**
+     * Carries the request's read route onto the task executor that writes streaming responses.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "apollo.db.replica.urls")
+    public TaskDecorator replicaRouteTaskDecorator(ReplicaRouter replicaRouter) {
+        return replicaRouter::withCurrentRoute;
+    }
+}
@@ -0,0 +1,56 @@
+package com.apollo.config;
+
+import com.apollo.config.RateLimiter.EndpointClass;
+import com.apollo.config.RateLimiter.Limit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Per-client admission control on /vehicle (see {@link RateLimiter}). Limits start from
+ * {@code apollo.ratelimit.<class>.rate|burst|max-in-flight} and can be changed at runtime via /actuator/ratelimits.
+ */
+@Configuration
+@ConditionalOnProperty(name = "apollo.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(Environment environment) {
+        RateLimiter rateLimiter = new RateLimiter(
+                environment.getProperty("apollo.ratelimit.max-clients", Long.class, 100_000L),
+                environment.getProperty("apollo.ratelimit.idle-timeout", Duration.class, Duration.ofMinutes(10)));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "apollo.ratelimit." + endpointClass.getName() + ".";
+            Limit defaults = endpointClass.getDefaultLimit();
+            rateLimiter.setLimit(endpointClass, new Limit(
+                    environment.getProperty(prefix + "rate", Double.class, defaults.rate()),
+                    environment.getProperty(prefix + "burst", Integer.class, defaults.burst()),
+                    environment.getProperty(prefix + "max-in-flight", Integer.class, defaults.maxInFlight())));
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * Runs right after the observation filter, so refused requests still show up in http.server.requests, and
+     * before anything that touches the database.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                                                                   Environment environment) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter,
+                objectMapper, environment.getProperty("apollo.ratelimit.client-header", "X-API-Key")));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public RateLimitEndpoint rateLimitEndpoint(RateLimiter rateLimiter) {
+        return new RateLimitEndpoint(rateLimiter);
+    }
+}
@@ -0,0 +1,63 @@
+package com.apollo.config;
+
+import com.apollo.config.RateLimiter.EndpointClass;
+import com.apollo.config.RateLimiter.Limit;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/ratelimits}: the current limit and in-flight count of each endpoint class, and
+ * {@code POST /actuator/ratelimits/{class}} with any of {@code rate}, {@code burst} and {@code maxInFlight} to change
+ * them without a restart. Changes are not persisted; the apollo.ratelimit properties apply again on restart.
+ */
+@Endpoint(id = "ratelimits")
+public class RateLimitEndpoint {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitEndpoint(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> limits() {
+        Map<String, Map<String, Object>> limits = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass.getName(), describe(endpointClass));
+        }
+        return limits;
+    }
+
+    @ReadOperation
+    public Map<String, Object> limit(@Selector String endpointClass) {
+        return describe(EndpointClass.fromName(endpointClass));
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Selector String endpointClass, @Nullable Double rate, @Nullable Integer burst,
+                                      @Nullable Integer maxInFlight) {
+        EndpointClass updated = EndpointClass.fromName(endpointClass);
+        Limit current = rateLimiter.getLimit(updated);
+        rateLimiter.setLimit(updated, new Limit(
+                rate != null ? rate : current.rate(),
+                burst != null ? burst : current.burst(),
+                maxInFlight != null ? maxInFlight : current.maxInFlight()));
+        return describe(updated);
+    }
+
+    private Map<String, Object> describe(EndpointClass endpointClass) {
+        Limit limit = rateLimiter.getLimit(endpointClass);
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", limit.rate());
+        description.put("burst", limit.burst());
+        description.put("maxInFlight", limit.maxInFlight());
+        description.put("inFlight", rateLimiter.getInFlight(endpointClass));
+        return description;
+    }
+}
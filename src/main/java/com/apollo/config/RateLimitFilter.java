@@ -0,0 +1,147 @@
+package com.apollo.config;
+
+import com.apollo.config.RateLimiter.EndpointClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits /vehicle requests through the {@link RateLimiter} before any database work. The client is the
+ * {@code clientHeader} value (an API key) when sent, otherwise the remote address. Refused requests get 429 with
+ * Retry-After; requests that go async (streams, the change feed) hold their in-flight slot until they complete.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final String clientHeader;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper, String clientHeader) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        // The in-flight check is one CAS on a shared counter; take it first so a refused request spends no tokens
+        if (!rateLimiter.tryEnter(endpointClass)) {
+            tooManyRequests(response, 1, "Too many " + endpointClass.getName() + " requests are running. Retry later.");
+            return;
+        }
+        long waitNanos = rateLimiter.tryAcquire(client(request), endpointClass);
+        if (waitNanos > 0) {
+            rateLimiter.exit(endpointClass);
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            tooManyRequests(response, retryAfter, "Rate limit for " + endpointClass.getName() + " requests exceeded.");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            if (async) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        rateLimiter.exit(endpointClass);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        // onComplete follows
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        // onComplete follows
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        // not re-registered
+                    }
+                });
+            }
+        } finally {
+            if (!async) {
+                rateLimiter.exit(endpointClass);
+            }
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        String key = request.getHeader(clientHeader);
+        return key != null && !key.isBlank() ? "key:" + key : "ip:" + request.getRemoteAddr();
+    }
+
+    private void tooManyRequests(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many requests");
+        error.put("message", message);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    /**
+     * The endpoint class of a VehicleController route, or null for requests outside /vehicle.
+     */
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/vehicle")) {
+            return null;
+        }
+        String rest = path.substring("/vehicle".length());
+        if (!rest.isEmpty() && rest.charAt(0) != '/') {
+            return null;
+        }
+        if (rest.equals("/")) {
+            rest = "";
+        }
+        switch (request.getMethod()) {
+            case "GET", "HEAD":
+                if (rest.isEmpty()) {
+                    boolean page = request.getParameter("after") != null || request.getParameter("limit") != null;
+                    return page && !"true".equals(request.getParameter("stream")) ? EndpointClass.QUERY : EndpointClass.SCAN;
+                }
+                if (rest.startsWith("/archive/years/")) {
+                    // Decompresses and streams a whole archived model year
+                    return EndpointClass.SCAN;
+                }
+                boolean query = rest.equals("/search") || rest.equals("/search/text") || rest.equals("/stats")
+                        || rest.equals("/archive");
+                return query ? EndpointClass.QUERY : EndpointClass.LOOKUP;
+            case "POST":
+                if (rest.equals("/batch") || rest.equals("/import")) {
+                    return EndpointClass.BULK;
+                }
+                return rest.equals("/lookup") ? EndpointClass.QUERY : EndpointClass.WRITE;
+            case "PUT", "PATCH", "DELETE":
+                return EndpointClass.WRITE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.apollo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client rate limits and global in-flight caps for each {@link EndpointClass}, without locks.
+ * <p>
+ * Each (client, endpoint class) bucket is one AtomicLong holding its theoretical arrival time (GCRA, the
+ * token bucket expressed as a timestamp): a request is admitted when advancing it by one emission interval keeps it
+ * within {@code burst} intervals of now, and the advance is a single compare-and-set. Buckets live in a Caffeine
+ * cache bounded by {@code maxClients} and dropped after {@code idleTimeout}, so neither a key nor a lock is shared
+ * between clients. In-flight counts are one AtomicInteger per class. Limits can be replaced at any time and
+ * apply from the next request.
+ */
+public class RateLimiter implements MeterBinder {
+
+    /**
+     * Endpoints grouped by what they cost the database, each with its own per-client budget.
+     */
+    public enum EndpointClass {
+        /** Single-vehicle reads served by the primary key or the cache. */
+        LOOKUP(new Limit(1000, 2000, 0)),
+        /** Bounded multi-row reads: keyset pages, search, stats and multi-get. */
+        QUERY(new Limit(100, 200, 0)),
+        /** Full table reads (GET /vehicle without a page, streaming); also capped in flight. */
+        SCAN(new Limit(1, 5, 4)),
+        /** Single-vehicle writes. */
+        WRITE(new Limit(200, 400, 0)),
+        /** Batch writes and imports; also capped in flight. */
+        BULK(new Limit(2, 10, 2));
+
+        private final Limit defaultLimit;
+
+        EndpointClass(Limit defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+
+        public Limit getDefaultLimit() {
+            return defaultLimit;
+        }
+
+        /**
+         * Name used in properties ({@code apollo.ratelimit.<name>.rate}), metrics and the actuator endpoint.
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static EndpointClass fromName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * {@code rate} requests per second per client with bursts of up to {@code burst}; a rate of 0 or less means
+     * no rate limit. At most {@code maxInFlight} requests of the class run at once across all clients; 0 means
+     * no cap.
+     */
+    public record Limit(double rate, int burst, int maxInFlight) {
+    }
+
+    private record Key(String client, EndpointClass endpointClass) {
+    }
+
+    private static final EndpointClass[] CLASSES = EndpointClass.values();
+
+    private final AtomicReferenceArray<Limit> limits = new AtomicReferenceArray<>(CLASSES.length);
+    private final AtomicInteger[] inFlight = new AtomicInteger[CLASSES.length];
+    private final AtomicLong[] rateRejections = new AtomicLong[CLASSES.length];
+    private final AtomicLong[] inFlightRejections = new AtomicLong[CLASSES.length];
+    private final Cache<Key, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(long maxClients, Duration idleTimeout) {
+        this(maxClients, idleTimeout, System::nanoTime);
+    }
+
+    RateLimiter(long maxClients, Duration idleTimeout, LongSupplier nanoClock) {
+        for (EndpointClass endpointClass : CLASSES) {
+            limits.set(endpointClass.ordinal(), endpointClass.getDefaultLimit());
+            inFlight[endpointClass.ordinal()] = new AtomicInteger();
+            rateRejections[endpointClass.ordinal()] = new AtomicLong();
+            inFlightRejections[endpointClass.ordinal()] = new AtomicLong();
+        }
+        this.buckets = Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(idleTimeout).build();
+        this.nanoClock = nanoClock;
+    }
+
+    public Limit getLimit(EndpointClass endpointClass) {
+        return limits.get(endpointClass.ordinal());
+    }
+
+    public void setLimit(EndpointClass endpointClass, Limit limit) {
+        limits.set(endpointClass.ordinal(), limit);
+    }
+
+    /**
+     * Takes one request from the client's bucket for the class. Returns 0 when admitted, otherwise how many
+     * nanoseconds until the request would have been admitted; a rejected request takes nothing.
+     */
+    public long tryAcquire(String client, EndpointClass endpointClass) {
+        Limit limit = limits.get(endpointClass.ordinal());
+        if (limit.rate() <= 0) {
+            return 0;
+        }
+        long interval = Math.max(1, (long) (1_000_000_000L / limit.rate()));
+        long tolerance = interval * Math.max(1, limit.burst());
+        AtomicLong arrival = buckets.get(new Key(client, endpointClass), key -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = arrival.get();
+            // Debt from a slower limit set before is capped at this limit's burst window
+            long next = (current == Long.MIN_VALUE || current < now ? now : Math.min(current, now + tolerance)) + interval;
+            if (next - now > tolerance) {
+                rateRejections[endpointClass.ordinal()].incrementAndGet();
+                return next - now - tolerance;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Claims an in-flight slot for the class; false when its {@code maxInFlight} are taken. Every true must be
+     * paired with {@link #exit}.
+     */
+    public boolean tryEnter(EndpointClass endpointClass) {
+        AtomicInteger count = inFlight[endpointClass.ordinal()];
+        while (true) {
+            int current = count.get();
+            int max = limits.get(endpointClass.ordinal()).maxInFlight();
+            if (max > 0 && current >= max) {
+                inFlightRejections[endpointClass.ordinal()].incrementAndGet();
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void exit(EndpointClass endpointClass) {
+        inFlight[endpointClass.ordinal()].decrementAndGet();
+    }
+
+    public int getInFlight(EndpointClass endpointClass) {
+        return inFlight[endpointClass.ordinal()].get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EndpointClass endpointClass : CLASSES) {
+            int index = endpointClass.ordinal();
+            Gauge.builder("apollo.ratelimit.in.flight", inFlight[index], AtomicInteger::get)
+                    .description("Requests of the endpoint class running now")
+                    .tag("class", endpointClass.getName())
+                    .register(registry);
+            registry.more().counter("apollo.ratelimit.rejected", Tags.of(
+                    "class", endpointClass.getName(), "reason", "rate"), rateRejections[index]);
+            registry.more().counter("apollo.ratelimit.rejected", Tags.of(
+                    "class", endpointClass.getName(), "reason", "in-flight"), inFlightRejections[index]);
+        }
+        Gauge.builder("apollo.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Client buckets currently tracked")
+                .register(registry);
+    }
+}
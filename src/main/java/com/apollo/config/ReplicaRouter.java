@@ -0,0 +1,246 @@
+package com.apollo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends VehicleDAO reads to read replicas. {@link #getDataSource()} hands out connections round-robin over the
+ * replicas that are up; a replica that fails to connect is skipped for {@code quarantine} and then tried again.
+ * A replica whose pool or bulkhead is full is only passed over for that read.
+ * When no replica is up, reads fall back to the primary.
+ * <p>
+ * A thread can narrow this with {@link #routeToPrimary()} (read-your-writes) or {@link #pinReplica()} (every read
+ * of a request from the same replica, so an ETag and the rows it tags agree) until {@link #clearRoute()}.
+ * Not a DataSource bean itself, so Spring Boot still configures the primary as the application DataSource.
+ */
+public class ReplicaRouter implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long quarantineNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong primaryReads = new AtomicLong();
+    private final ThreadLocal<Route> route = new ThreadLocal<>();
+    private final Cache<String, Boolean> recentWrites;
+    private final DataSource dataSource = new AbstractDataSource() {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connect();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+        }
+    };
+
+    public ReplicaRouter(DataSource primary, List<DataSource> replicas, Duration quarantine, Duration readYourWritesWindow) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.quarantineNanos = quarantine.toNanos();
+        this.recentWrites = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Reads of the current thread go to the primary until {@link #clearRoute()}.
+     */
+    public void routeToPrimary() {
+        route.set(new Route(true));
+    }
+
+    /**
+     * Reads of the current thread stay on the first replica they use until {@link #clearRoute()}.
+     */
+    public void pinReplica() {
+        route.set(new Route(false));
+    }
+
+    public void clearRoute() {
+        route.remove();
+    }
+
+    /**
+     * Wraps {@code task} so it runs with the route of the calling thread, for work handed to another thread
+     * such as a streaming response body.
+     */
+    public Runnable withCurrentRoute(Runnable task) {
+        Route current = route.get();
+        if (current == null) {
+            return task;
+        }
+        return () -> {
+            route.set(current);
+            try {
+                task.run();
+            } finally {
+                route.remove();
+            }
+        };
+    }
+
+    /**
+     * Records a committed write of {@code key} (an upper-cased vin). Until the read-your-writes window has passed,
+     * {@link #isRecentlyWritten} tells callers to read it from the primary.
+     */
+    public void recordWrite(String key) {
+        recentWrites.put(key, Boolean.TRUE);
+    }
+
+    public boolean isRecentlyWritten(String key) {
+        return recentWrites.getIfPresent(key) != null;
+    }
+
+    private Connection connect() throws SQLException {
+        Route current = route.get();
+        if (current != null && current.primary) {
+            primaryReads.incrementAndGet();
+            return primary.getConnection();
+        }
+        if (current != null && current.pinned != null) {
+            Connection connection = tryConnect(current.pinned);
+            if (connection != null) {
+                return connection;
+            }
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            Connection connection = tryConnect(replica);
+            if (connection != null) {
+                if (current != null) {
+                    current.pinned = replica;
+                }
+                return connection;
+            }
+        }
+        primaryReads.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    private Connection tryConnect(Replica replica) {
+        if (System.nanoTime() - replica.downUntil < 0) {
+            return null;
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replica.connections.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            if (!isConnectionFailure(e)) {
+                // Pool or bulkhead full: the replica is up but busy, so try the next one without marking it down
+                replica.busy.incrementAndGet();
+                log.debug("Read replica {} has no free connection: {}", replica.name, e.getMessage());
+                return null;
+            }
+            replica.downUntil = System.nanoTime() + quarantineNanos;
+            replica.failures.incrementAndGet();
+            log.warn("Read replica {} is unavailable, skipping it for {} ms: {}", replica.name, quarantineNanos / 1_000_000, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * True when {@code e} means the replica cannot be reached: SQLState class 08, or any failure that is not
+     * transient. A transient failure without a connection SQLState is a pool or bulkhead timeout.
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return (state != null && state.startsWith("08")) || !(e instanceof SQLTransientException);
+    }
+
+    boolean isUp(int index) {
+        return System.nanoTime() - replicas.get(index).downUntil >= 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(i);
+            int index = i;
+            FunctionCounter.builder("apollo.db.replica.connections", replica.connections, AtomicLong::get)
+                    .tag("replica", replica.name)
+                    .description("Read connections handed out by the replica")
+                    .register(registry);
+            FunctionCounter.builder("apollo.db.replica.failures", replica.failures, AtomicLong::get)
+                    .tag("replica", replica.name)
+                    .description("Failed connection attempts that put the replica in quarantine")
+                    .register(registry);
+            FunctionCounter.builder("apollo.db.replica.busy", replica.busy, AtomicLong::get)
+                    .tag("replica", replica.name)
+                    .description("Connection attempts that found the replica pool full and moved on without quarantine")
+                    .register(registry);
+            Gauge.builder("apollo.db.replica.up", this, router -> router.isUp(index) ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .description("1 while the replica takes reads, 0 while it is quarantined")
+                    .register(registry);
+        }
+        FunctionCounter.builder("apollo.db.replica.primary.reads", primaryReads, AtomicLong::get)
+                .description("Reads sent to the primary for read-your-writes or because no replica was up")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (Replica replica : replicas) {
+            DataSource target = replica.dataSource;
+            while (target instanceof DelegatingDataSource delegating) {
+                target = delegating.getTargetDataSource();
+            }
+            if (target instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Route {
+        final boolean primary;
+        Replica pinned;
+
+        Route(boolean primary) {
+            this.primary = primary;
+        }
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        final AtomicLong connections = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong busy = new AtomicLong();
+        volatile long downUntil = System.nanoTime();
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.apollo.config;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.dao.VehicleWriteBuffer;
+import com.apollo.dao.VehicleWriteFlusher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Write-behind mode for PUT /vehicle/{vin}: updates are acknowledged once they are in the log under
+ * {@code apollo.write-behind.directory}, collapsed per vin, and written to the database in batches every
+ * {@code apollo.write-behind.flush-interval}. The directory must be on a local disk that outlives the process and
+ * belongs to this instance alone.
+ */
+@Configuration
+@ConditionalOnProperty(name = "apollo.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    @Bean
+    public VehicleWriteBuffer vehicleWriteBuffer(ObjectMapper objectMapper, Environment environment) throws IOException {
+        return new VehicleWriteBuffer(
+                Path.of(environment.getProperty("apollo.write-behind.directory", "write-behind")),
+                environment.getProperty("apollo.write-behind.fsync", Boolean.class, true),
+                environment.getProperty("apollo.write-behind.max-pending", Integer.class, 100_000),
+                objectMapper);
+    }
+
+    @Bean
+    public VehicleWriteFlusher vehicleWriteFlusher(VehicleDAO vehicleDAO, Environment environment) {
+        return new VehicleWriteFlusher(vehicleDAO,
+                environment.getProperty("apollo.write-behind.flush-interval", Duration.class, Duration.ofMillis(200)));
+    }
+}
@@ -0,0 +1,138 @@
+package com.apollo.controller;
+
+import com.apollo.dao.VehicleChangeFeed;
+import com.apollo.model.VehicleChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events subscriptions to {@link VehicleChangeFeed}. Every subscriber gets its own thread that
+ * follows the feed from its last sequence number, so a slow client only delays itself; once it falls more than
+ * the ring behind it gets a {@code resync} event and continues from the newest change.
+ */
+@Component
+public class VehicleChangeStreams implements MeterBinder, DisposableBean {
+
+    private static final int MAX_CHANGES_PER_WAKEUP = 500;
+
+    private final VehicleChangeFeed changeFeed;
+    private final int maxSubscribers;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public VehicleChangeStreams(VehicleChangeFeed changeFeed,
+                                @Value("${apollo.changes.max-subscribers:100}") int maxSubscribers,
+                                @Value("${apollo.changes.heartbeat:15s}") Duration heartbeat,
+                                @Value("${apollo.changes.timeout:30m}") Duration timeout) {
+        this.changeFeed = changeFeed;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "vehicle-changes-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a subscription that starts after {@code lastSeq}, or at the newest change when it is null.
+     *
+     * @throws ChangeFeedFullException when {@code apollo.changes.max-subscribers} are already connected
+     */
+    public SseEmitter subscribe(Long lastSeq) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ChangeFeedFullException("Too many change feed subscribers");
+        }
+        // Clients reconnect after the timeout and resume from their Last-Event-ID
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        long start = lastSeq != null ? lastSeq : changeFeed.head();
+        try {
+            executor.execute(() -> pump(emitter, closed, start));
+        } catch (RejectedExecutionException e) {
+            subscribers.decrementAndGet();
+            throw new ChangeFeedFullException("No thread for another change feed subscriber");
+        }
+        return emitter;
+    }
+
+    static class ChangeFeedFullException extends RuntimeException {
+        ChangeFeedFullException(String message) {
+            super(message);
+        }
+    }
+
+    private void pump(SseEmitter emitter, AtomicBoolean closed, long start) {
+        long cursor = start;
+        try {
+            while (!closed.get()) {
+                List<VehicleChange> changes = changeFeed.await(cursor, MAX_CHANGES_PER_WAKEUP, heartbeat);
+                if (changes == null) {
+                    cursor = changeFeed.head();
+                    resyncs.incrementAndGet();
+                    emitter.send(SseEmitter.event().id(Long.toString(cursor)).name("resync")
+                            .data(Map.of("seq", cursor), MediaType.APPLICATION_JSON));
+                } else if (changes.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    for (VehicleChange change : changes) {
+                        emitter.send(SseEmitter.event().id(Long.toString(change.seq()))
+                                .name(change.type().name().toLowerCase(Locale.ROOT))
+                                .data(change, MediaType.APPLICATION_JSON));
+                        cursor = change.seq();
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter timed out; it reconnects with its Last-Event-ID
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.decrementAndGet();
+            emitter.complete();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vehicle.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Connected GET /vehicle/changes subscribers")
+                .register(registry);
+        FunctionCounter.builder("vehicle.changes.resyncs", resyncs, AtomicLong::get)
+                .description("Subscribers told to resync because they fell out of the change buffer")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,36 +1,206 @@
 package com.apollo.controller;
 
+import com.apollo.model.ArchivedYear;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.CompactVehicle;
 import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleListView;
+import com.apollo.model.VehicleSearchCriteria;
+import com.apollo.model.VehicleVersion;
+import com.apollo.dao.VehicleArchive;
+import com.apollo.dao.VehicleCache;
 import com.apollo.dao.VehicleDAO;
+import com.apollo.dao.VehicleStats;
+import com.apollo.dao.VehicleTextSearch;
+import com.apollo.importer.VehicleImporter;
+import com.apollo.model.ImportReport;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/vehicle")
 public class VehicleController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String TEXT_CSV = "text/csv";
+
     private final VehicleDAO vehicleDAO;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VehicleCache vehicleCache;
+    private final VehicleImporter vehicleImporter;
+    private final VehicleChangeStreams vehicleChangeStreams;
+    private final VehicleStats vehicleStats;
+    private final VehicleTextSearch vehicleTextSearch;
+    private final VehicleArchive vehicleArchive;
+    private final int maxLookupVins;
+    private final int maxTextResults;
 
     @Autowired
-    public VehicleController(VehicleDAO vehicleDAO) {
+    public VehicleController(VehicleDAO vehicleDAO, ObjectMapper objectMapper, Validator validator, VehicleCache vehicleCache,
+                             VehicleImporter vehicleImporter, VehicleChangeStreams vehicleChangeStreams, VehicleStats vehicleStats,
+                             VehicleTextSearch vehicleTextSearch, VehicleArchive vehicleArchive,
+                             @Value("${apollo.vehicle.lookup.max-vins:1000}") int maxLookupVins,
+                             @Value("${apollo.search.text.max-results:100}") int maxTextResults) {
         this.vehicleDAO = vehicleDAO;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.vehicleCache = vehicleCache;
+        this.vehicleImporter = vehicleImporter;
+        this.vehicleChangeStreams = vehicleChangeStreams;
+        this.vehicleStats = vehicleStats;
+        this.vehicleTextSearch = vehicleTextSearch;
+        this.vehicleArchive = vehicleArchive;
+        this.maxLookupVins = maxLookupVins;
+        this.maxTextResults = maxTextResults;
     }
 
+    /**
+     * List elements carry {@link VehicleField#LIST_VIEW} unless {@code fields} names others; only the selected
+     * columns are read from the database.
+     */
     @GetMapping
-    public ResponseEntity<List<Vehicle>> getAllVehicles() {
-        List<Vehicle> vehicles = vehicleDAO.getAllVehicles();
-        return ResponseEntity.ok(vehicles);
+    public ResponseEntity<?> getAllVehicles(@RequestParam(required = false) String after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String fields,
+                                            WebRequest request) {
+        Set<VehicleField> view = listView(fields);
+        String etag = tableEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            List<CompactVehicle> vehicles = view != null ? vehicleDAO.getAllVehicles(view) : vehicleDAO.getAllVehicles();
+            return ResponseEntity.ok().eTag(etag).body(new VehicleListView(vehicles, view != null ? view : VehicleField.LIST_VIEW));
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        List<CompactVehicle> vehicles = view != null
+                ? vehicleDAO.getVehiclesAfter(after, pageSize, view)
+                : vehicleDAO.getVehiclesAfter(after, pageSize);
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("vehicles", new VehicleListView(vehicles, view != null ? view : VehicleField.LIST_VIEW));
+        page.put("nextAfter", vehicles.isEmpty() ? null : vehicles.get(vehicles.size() - 1).vin());
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles(@RequestParam(required = false) String fields, WebRequest request) {
+        Set<VehicleField> view = listView(fields);
+        String etag = tableEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (view != null) {
+                    vehicleDAO.streamAllVehicles(generator, view);
+                } else {
+                    vehicleDAO.streamAllVehicles(generator);
+                }
+            }
+        };
+        // checkNotModified has already put the ETag on the response
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * The fields named by {@code ?fields=}, or null for the DAO's default list view.
+     */
+    private static Set<VehicleField> listView(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        try {
+            return VehicleField.parseList(fields);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidFieldsException(e.getMessage());
+        }
+    }
+
+    static class InvalidFieldsException extends RuntimeException {
+        InvalidFieldsException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * ETag for every collection view. It is read before the rows, so a response is never older than
+     * its tag; at worst a poller downloads one extra time. It is weak because one table version has many
+     * representations (field projections, gzip), and Tomcat will not compress a response with a strong tag.
+     */
+    private String tableEtag() {
+        return tableEtag(vehicleDAO.getTableVersion());
+    }
+
+    private static String tableEtag(long tableVersion) {
+        return "W/\"t" + tableVersion + "\"";
+    }
+
+    /**
+     * Counts and averages grouped by any of manufacturerName, modelName, modelYear and fuelType, aggregated by the
+     * database and cached until the next write, so a dashboard never has to download the vehicles.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam(required = false) String groupBy, WebRequest request) {
+        Set<VehicleField> dimensions;
+        try {
+            dimensions = VehicleStats.parseGroupBy(groupBy);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Invalid groupBy");
+            error.put("message", e.getMessage() + ". Group by any of manufacturerName, modelName, modelYear and fuelType.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        long tableVersion = vehicleDAO.getTableVersion();
+        String etag = tableEtag(tableVersion);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        VehicleStats.Report report = vehicleStats.report(dimensions, tableVersion);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("groupBy", dimensions.stream().map(VehicleField::getProperty).toList());
+        body.put("total", report.total());
+        body.put("groups", report.groups());
+        return ResponseEntity.ok().eTag(etag).body(body);
     }
 
     @PostMapping
@@ -39,23 +209,302 @@ public class VehicleController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedVehicle);
     }
 
+    /**
+     * Accepts a JSON array or NDJSON stream of vehicles. Every item is parsed and validated on its own,
+     * valid ones are written through JDBC batches, and the response reports a status per item.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public ResponseEntity<Map<String, Object>> createVehicles(@RequestParam(defaultValue = "false") boolean upsert,
+                                                              InputStream body) throws IOException {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<BatchItemResult> written = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            int index = 0;
+            while (items.hasNextValue()) {
+                BatchItemResult result = validateItem(index++, items.nextValue(), vehicles);
+                results.add(result);
+                if (result.getStatus() == null) {
+                    written.add(result);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Invalid JSON format");
+            error.put("message", "The request body could not be parsed as a JSON array or NDJSON stream of vehicles.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        List<BatchItemResult.Status> statuses = vehicleDAO.insertVehicles(vehicles, upsert);
+        for (int i = 0; i < written.size(); i++) {
+            written.get(i).setStatus(statuses.get(i));
+        }
+
+        Map<BatchItemResult.Status, Integer> counts = new EnumMap<>(BatchItemResult.Status.class);
+        for (BatchItemResult result : results) {
+            counts.merge(result.getStatus(), 1, Integer::sum);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (BatchItemResult.Status status : BatchItemResult.Status.values()) {
+            response.put(status.name().toLowerCase(), counts.getOrDefault(status, 0));
+        }
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams a large CSV (header row required) or NDJSON upload through {@link VehicleImporter}. Memory use does
+     * not depend on the upload size; the report lists per-line rejects up to {@code apollo.import.max-rejects}.
+     */
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    public ResponseEntity<?> importVehicles(@RequestParam(defaultValue = "false") boolean upsert,
+                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                            InputStream body) throws IOException {
+        VehicleImporter.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? VehicleImporter.Format.CSV
+                : VehicleImporter.Format.NDJSON;
+        try {
+            ImportReport report = vehicleImporter.importVehicles(body, format, upsert, progress -> { });
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Invalid import file");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    private BatchItemResult validateItem(int index, JsonNode node, List<Vehicle> vehicles) {
+        String vin = node.hasNonNull("vin") ? node.get("vin").asText() : null;
+        Vehicle vehicle;
+        try {
+            vehicle = objectMapper.treeToValue(node, Vehicle.class);
+        } catch (JsonProcessingException e) {
+            Map<String, String> errors = new HashMap<>();
+            errors.put("body", "The item could not be parsed as a Vehicle JSON representation.");
+            return new BatchItemResult(index, vin, BatchItemResult.Status.INVALID, errors);
+        }
+        Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new HashMap<>();
+            for (ConstraintViolation<Vehicle> violation : violations) {
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            return new BatchItemResult(index, vin, BatchItemResult.Status.INVALID, errors);
+        }
+        vehicles.add(vehicle);
+        return new BatchItemResult(index, vin, null, null);
+    }
+
+    /**
+     * Multi-get for a JSON array of vins: one request and a few array queries instead of a GET /vehicle/{vin} per
+     * vin. Vehicles come back in request order, once per vehicle however many times (or in whatever case) its vin
+     * was asked for; vins without a vehicle are listed under {@code missing} as sent.
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<Map<String, Object>> lookupVehicles(@RequestBody List<String> vins) {
+        if (vins.size() > maxLookupVins || vins.stream().anyMatch(vin -> vin == null || vin.isBlank())) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Invalid lookup");
+            error.put("message", "The request body must be a JSON array of at most " + maxLookupVins + " non-blank vins.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        Map<String, Vehicle> found = vehicleDAO.getVehiclesByVins(vins);
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String vin : vins) {
+            String key = VehicleCache.key(vin);
+            if (seen.add(key)) {
+                Vehicle vehicle = found.get(key);
+                if (vehicle != null) {
+                    vehicles.add(vehicle);
+                } else {
+                    missing.add(vin);
+                }
+            }
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("vehicles", vehicles);
+        response.put("missing", missing);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Vehicle>> searchVehicles(@Valid VehicleSearchCriteria criteria) {
+        return ResponseEntity.ok(vehicleDAO.searchVehicles(criteria));
+    }
+
+    /**
+     * Vehicles whose model name or description contain every word of {@code q}, where a word also matches the
+     * longer words it starts, best matches first. 503 while the in-process index is still being built.
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<?> searchText(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        List<String> words;
+        try {
+            words = VehicleTextSearch.parseQuery(q);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Invalid query");
+            error.put("message", e.getMessage() + ".");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        int resultLimit = Math.min(Math.max(limit != null ? limit : 20, 1), maxTextResults);
+        List<Vehicle> vehicles = vehicleTextSearch.search(words, resultLimit);
+        if (vehicles == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Search index building");
+            error.put("message", "The full-text index is being built. Retry later.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+        }
+        return ResponseEntity.ok(vehicles);
+    }
+
+    /**
+     * Server-Sent Events feed of committed inserts, updates and deletes, for clients that would otherwise poll
+     * GET /vehicle. Resumes after the {@code Last-Event-ID} an EventSource sends on reconnect, or after
+     * {@code since}; without either it starts with the next change.
+     */
+    @GetMapping("/changes")
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(required = false) Long since) {
+        return vehicleChangeStreams.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Model years moved to the archive (see VehicleArchive), with their vehicle counts and compressed sizes.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<List<ArchivedYear>> getArchivedYears() {
+        return ResponseEntity.ok(vehicleArchive.getYears());
+    }
+
+    /**
+     * An archived vehicle as it was when its model year was archived. Archived vehicles are read-only, so there is
+     * no ETag to update them with.
+     */
+    @GetMapping("/archive/{vin}")
+    public ResponseEntity<?> getArchivedVehicle(@PathVariable String vin) {
+        Vehicle vehicle = vehicleArchive.get(vin);
+        if (vehicle == null) {
+            return ResponseEntity.status(422).body("Vin not found");
+        }
+        return ResponseEntity.ok(vehicle);
+    }
+
+    /**
+     * Every archived vehicle of a model year, streamed as a JSON array one compressed chunk at a time.
+     */
+    @GetMapping("/archive/years/{modelYear}")
+    public ResponseEntity<StreamingResponseBody> streamArchivedYear(@PathVariable int modelYear) {
+        if (vehicleArchive.getYear(modelYear) == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Model year not archived");
+            error.put("message", "No vehicles of model year " + modelYear + " are archived");
+            // Declared as a stream so Spring hands the body below to the streaming handler, not to Jackson
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                vehicleArchive.streamYear(modelYear, generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(vehicleCache.stats());
+    }
+
     @GetMapping("/{vin}")
-    public ResponseEntity<?> getVehicleByVin(@PathVariable String vin) {
+    public ResponseEntity<?> getVehicleByVin(@PathVariable String vin, WebRequest request) {
+        // Conditional polls are answered from the version alone, without reading or serializing the row
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            VehicleVersion version = vehicleDAO.getVehicleVersion(vin);
+            if (version != null && request.checkNotModified(version.etag())) {
+                return null;
+            }
+        }
         Vehicle vehicle = vehicleDAO.getVehicleByVin(vin);
         if (vehicle == null) {
             return ResponseEntity.status(422).body("Vin not found");
         } else {
-            return ResponseEntity.status(HttpStatus.OK).body(vehicle);
+            return withVersion(ResponseEntity.status(HttpStatus.OK), vehicle).body(vehicle);
         }
     }
 
+    /**
+     * In write-behind mode an unconditional update is answered with 202 Accepted once it is logged, without an
+     * ETag since its version is assigned when it is flushed; updates with an If-Match version are applied directly.
+     */
     @PutMapping("/{vin}")
-    public ResponseEntity<?> updateVehicle(@PathVariable String vin, @Valid @RequestBody Vehicle vehicle) {
-        Vehicle updatedVehicle = vehicleDAO.updateVehicle(vin, vehicle);
+    public ResponseEntity<?> updateVehicle(@PathVariable String vin,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @Valid @RequestBody Vehicle vehicle) {
+        Vehicle updatedVehicle;
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            if (vehicleDAO.hasWriteBuffer()) {
+                return bufferUpdate(vin, vehicle);
+            }
+            updatedVehicle = vehicleDAO.updateVehicle(vin, vehicle);
+        } else {
+            Long expectedVersion = parseVersion(ifMatch);
+            if (expectedVersion == null) {
+                return preconditionFailed();
+            }
+            updatedVehicle = vehicleDAO.updateVehicle(vin, vehicle, expectedVersion);
+        }
         if (updatedVehicle == null) {
             return ResponseEntity.status(422).body("Vin not found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(updatedVehicle);
+        return withVersion(ResponseEntity.status(HttpStatus.OK), updatedVehicle).body(updatedVehicle);
+    }
+
+    private ResponseEntity<?> bufferUpdate(String vin, Vehicle vehicle) {
+        Vehicle accepted;
+        try {
+            accepted = vehicleDAO.bufferUpdate(vin, vehicle);
+        } catch (RejectedExecutionException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Too many pending updates");
+            error.put("message", "Updates are arriving faster than the database takes them. Retry later.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+        }
+        if (accepted == null) {
+            return ResponseEntity.status(422).body("Vin not found");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(accepted);
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, Vehicle vehicle) {
+        VehicleVersion version = VehicleVersion.of(vehicle);
+        if (version != null) {
+            builder.eTag(version.etag());
+            if (version.updatedAt() != null) {
+                builder.lastModified(version.updatedAt());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Reads the version out of a strong {@code If-Match} tag such as {@code "42"}. Weak or malformed tags
+     * never match and return null.
+     */
+    private static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     @DeleteMapping("/{vin}")
@@ -72,6 +521,14 @@ public class VehicleController {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidFields(InvalidFieldsException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid fields");
+        error.put("message", ex.getMessage() + ". Use a comma separated list of vehicle properties, or * for all.");
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationError(MethodArgumentNotValidException ex) {
         Map<String, Object> errorResponse = new HashMap<>();
@@ -89,6 +546,47 @@ public class VehicleController {
         return ResponseEntity.status(422).body(errorResponse);
     }
 
-    
-}
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<Map<String, String>> handleDuplicateVin(DuplicateKeyException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Duplicate VIN");
+        error.put("message", "A vehicle with this VIN already exists.");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleVersionMismatch(OptimisticLockingFailureException ex) {
+        return preconditionFailed();
+    }
 
+    private static ResponseEntity<Map<String, String>> preconditionFailed() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Precondition failed");
+        error.put("message", "The vehicle has changed since the version given in If-Match.");
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> handleConstraintViolation(DataIntegrityViolationException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Constraint violation");
+        error.put("message", "The vehicle violates a database constraint.");
+        return ResponseEntity.status(422).body(error);
+    }
+
+    @ExceptionHandler(VehicleChangeStreams.ChangeFeedFullException.class)
+    public ResponseEntity<Map<String, String>> handleTooManySubscribers(VehicleChangeStreams.ChangeFeedFullException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many subscribers");
+        error.put("message", "The change feed has no room for another subscriber. Retry later.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+    }
+
+    @ExceptionHandler({DataAccessResourceFailureException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<Map<String, String>> handleDatabaseUnavailable(RuntimeException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Database unavailable");
+        error.put("message", "No database connection became available in time. Retry later.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+}
@@ -0,0 +1,24 @@
+package com.apollo.dao;
+
+/**
+ * Database flavours VehicleDAO has native SQL for. Anything else gets the portable statements.
+ */
+public enum Dialect {
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    public static Dialect fromProductName(String productName) {
+        if (productName == null) {
+            return OTHER;
+        }
+        String name = productName.toLowerCase();
+        if (name.contains("postgresql")) {
+            return POSTGRESQL;
+        }
+        if (name.equals("h2")) {
+            return H2;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,292 @@
+package com.apollo.dao;
+
+import com.apollo.model.ArchivedYear;
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Old model years moved out of the vehicle table into vehicle_archive, where they stay readable through
+ * GET /vehicle/archive. A year is stored as gzip-compressed NDJSON chunks of {@code apollo.archive.chunk-size}
+ * vehicles, and vehicle_archive_vin records the chunk and line of every vin, so reading one archived vehicle
+ * decompresses one chunk. Archived vehicles are read-only and keep their version and updated_at.
+ * <p>
+ * Every {@code apollo.archive.interval} (off by default) the years older than {@code apollo.archive.keep-model-years}
+ * are archived, and on the partitioned PostgreSQL layout the partitions of the coming years are added. On demand:
+ * {@code POST /actuator/archive}.
+ */
+@Component
+public class VehicleArchive implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleArchive.class);
+
+    /**
+     * Years ahead of the current one that get their partition in advance.
+     */
+    private static final int PARTITION_YEARS_AHEAD = 2;
+
+    private final VehicleDAO vehicleDAO;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int keepModelYears;
+    private final Duration interval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "vehicle-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VehicleArchive(VehicleDAO vehicleDAO, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                          @Value("${apollo.archive.chunk-size:1000}") int chunkSize,
+                          @Value("${apollo.archive.keep-model-years:25}") int keepModelYears,
+                          @Value("${apollo.archive.interval:0s}") Duration interval) {
+        this.vehicleDAO = vehicleDAO;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.keepModelYears = keepModelYears;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!interval.isZero()) {
+            executor.scheduleWithFixedDelay(this::maintain, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void maintain() {
+        try {
+            int currentYear = Year.now().getValue();
+            int added = vehicleDAO.addYearPartitions(currentYear, currentYear + PARTITION_YEARS_AHEAD);
+            if (added > 0) {
+                log.info("Added {} vehicle model year partitions", added);
+            }
+            archiveBefore(currentYear - keepModelYears);
+        } catch (RuntimeException e) {
+            log.warn("Vehicle archival failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archives every model year older than {@code modelYear}, one transaction per year, and returns the years
+     * archived with their totals. {@code modelYear} is capped at the current year less
+     * {@code apollo.archive.keep-model-years}: nothing brings archived vehicles back, so no call may reach the years
+     * kept live. Archiving a year again, after vehicles of it were added, appends to it; for a vin archived twice
+     * the later copy is the one GET /vehicle/archive/{vin} returns.
+     */
+    public synchronized List<ArchivedYear> archiveBefore(int modelYear) {
+        int oldestKept = Year.now().getValue() - keepModelYears;
+        if (modelYear > oldestKept) {
+            log.warn("Archiving before model year {} instead of {}: the last {} years stay live", oldestKept, modelYear, keepModelYears);
+            modelYear = oldestKept;
+        }
+        List<ArchivedYear> archived = new ArrayList<>();
+        for (int year : vehicleDAO.getModelYearsBefore(modelYear)) {
+            long start = System.nanoTime();
+            int moved = archiveYear(year);
+            log.info("Archived {} vehicles of model year {} in {} ms", moved, year,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            ArchivedYear summary = getYear(year);
+            if (summary != null) {
+                archived.add(summary);
+            }
+        }
+        return archived;
+    }
+
+    private int archiveYear(int modelYear) {
+        Instant archivedAt = Instant.now();
+        int[] nextChunk = {-1};
+        return vehicleDAO.archiveModelYear(modelYear, chunkSize, vehicles -> {
+            if (nextChunk[0] < 0) {
+                // Read inside the move's transaction, after any partition lock
+                Integer last = jdbcTemplate.queryForObject("SELECT MAX(chunk) FROM vehicle_archive WHERE model_year = ?",
+                        Integer.class, modelYear);
+                nextChunk[0] = last != null ? last + 1 : 0;
+            }
+            writeChunk(modelYear, nextChunk[0]++, vehicles, archivedAt);
+        });
+    }
+
+    private void writeChunk(int modelYear, int chunk, List<Vehicle> vehicles, Instant archivedAt) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(vehicles.size() * 512);
+        byte[] payload = encode(objectMapper, vehicles, raw);
+        jdbcTemplate.update("INSERT INTO vehicle_archive (model_year, chunk, vehicle_count, raw_bytes, payload, archived_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)",
+                modelYear, chunk, vehicles.size(), raw.size(), payload, Timestamp.from(archivedAt));
+        jdbcTemplate.batchUpdate("DELETE FROM vehicle_archive_vin WHERE vin_key = ?", vehicles, vehicles.size(),
+                (ps, vehicle) -> ps.setString(1, VehicleCache.key(vehicle.getVin())));
+        List<Object[]> lines = new ArrayList<>(vehicles.size());
+        for (int i = 0; i < vehicles.size(); i++) {
+            lines.add(new Object[]{VehicleCache.key(vehicles.get(i).getVin()), modelYear, chunk, i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vehicle_archive_vin (vin_key, model_year, chunk, line) VALUES (?, ?, ?, ?)", lines);
+    }
+
+    /**
+     * The archived vehicle with the vin, whatever its case, or null.
+     */
+    public Vehicle get(String vin) {
+        List<Vehicle> vehicles = jdbcTemplate.query(
+                "SELECT a.payload, v.line FROM vehicle_archive_vin v " +
+                "JOIN vehicle_archive a ON a.model_year = v.model_year AND a.chunk = v.chunk WHERE v.vin_key = ?",
+                (rs, rowNum) -> decodeLine(objectMapper, rs.getBytes(1), rs.getInt(2)),
+                VehicleCache.key(vin));
+        return vehicles.isEmpty() ? null : vehicles.get(0);
+    }
+
+    /**
+     * Archived model years, oldest first.
+     */
+    public List<ArchivedYear> getYears() {
+        return jdbcTemplate.query(yearsSql("") + " ORDER BY model_year", this::mapYear);
+    }
+
+    /**
+     * The archived model year, or null when none of its vehicles are archived.
+     */
+    public ArchivedYear getYear(int modelYear) {
+        List<ArchivedYear> years = jdbcTemplate.query(yearsSql(" WHERE model_year = ?"), this::mapYear, modelYear);
+        return years.isEmpty() ? null : years.get(0);
+    }
+
+    private static String yearsSql(String where) {
+        return "SELECT model_year, SUM(vehicle_count), COUNT(*), SUM(raw_bytes), SUM(OCTET_LENGTH(payload)), MAX(archived_at) " +
+               "FROM vehicle_archive" + where + " GROUP BY model_year";
+    }
+
+    private ArchivedYear mapYear(ResultSet rs, int rowNum) throws SQLException {
+        return new ArchivedYear(rs.getInt(1), rs.getLong(2), rs.getInt(3), rs.getLong(4), rs.getLong(5),
+                rs.getTimestamp(6).toInstant());
+    }
+
+    /**
+     * Writes the archived vehicles of a model year as a JSON array, one chunk in memory at a time.
+     */
+    public void streamYear(int modelYear, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        jdbcTemplate.query("SELECT payload FROM vehicle_archive WHERE model_year = ? ORDER BY chunk",
+                (RowCallbackHandler) rs -> decode(objectMapper, rs.getBytes(1), vehicle -> {
+                    try {
+                        generator.writeObject(vehicle);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }),
+                modelYear);
+        generator.writeEndArray();
+    }
+
+    /**
+     * One chunk as gzip-compressed NDJSON, one vehicle per line with its version and updated_at. {@code raw}
+     * receives the uncompressed bytes.
+     */
+    static byte[] encode(ObjectMapper objectMapper, List<Vehicle> vehicles, ByteArrayOutputStream raw) {
+        try {
+            for (Vehicle vehicle : vehicles) {
+                ArchiveLine line = new ArchiveLine(vehicle, vehicle.getVersion(),
+                        vehicle.getUpdatedAt() != null ? vehicle.getUpdatedAt().toString() : null);
+                raw.write(objectMapper.writeValueAsBytes(line));
+                raw.write('\n');
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.size() / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                raw.writeTo(gzip);
+            }
+            return compressed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The vehicle on line {@code line} (from 0) of a chunk; the lines before it are skipped without parsing.
+     */
+    static Vehicle decodeLine(ObjectMapper objectMapper, byte[] payload, int line) {
+        try (BufferedReader reader = reader(payload)) {
+            for (int i = 0; i < line; i++) {
+                reader.readLine();
+            }
+            String json = reader.readLine();
+            return json != null ? toVehicle(objectMapper, json) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void decode(ObjectMapper objectMapper, byte[] payload, Consumer<Vehicle> consumer) {
+        try (BufferedReader reader = reader(payload)) {
+            String json;
+            while ((json = reader.readLine()) != null) {
+                consumer.accept(toVehicle(objectMapper, json));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One NDJSON line: the vehicle's fields followed by the two Vehicle keeps out of its JSON. Written directly rather
+     * than through a tree, which would strip the trailing zeros of purchasePrice.
+     */
+    private record ArchiveLine(@JsonUnwrapped Vehicle vehicle, Long version, String updatedAt) {
+    }
+
+    private static BufferedReader reader(byte[] payload) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8));
+    }
+
+    private static Vehicle toVehicle(ObjectMapper objectMapper, String json) throws IOException {
+        // Bound from the text, not the tree, so purchasePrice keeps its scale; version and updatedAt are
+        // @JsonIgnore on Vehicle and come from the tree
+        Vehicle vehicle = objectMapper.readValue(json, Vehicle.class);
+        ObjectNode line = (ObjectNode) objectMapper.readTree(json);
+        if (line.hasNonNull("version")) {
+            vehicle.setVersion(line.get("version").asLong());
+        }
+        if (line.hasNonNull("updatedAt")) {
+            vehicle.setUpdatedAt(Instant.parse(line.get("updatedAt").asText()));
+        }
+        return vehicle;
+    }
+}
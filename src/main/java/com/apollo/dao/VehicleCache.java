@@ -0,0 +1,117 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for vehicle lookups by vin, bounded by size and TTL. Keys are upper-cased to match the
+ * vin_unique_case_insensitive index, so "abcd" and "ABCD" share an entry. Misses are cached too, for a shorter TTL.
+ * Cached vehicles are shared between callers and must not be modified.
+ */
+@Component
+public class VehicleCache implements MeterBinder {
+
+    private static final Vehicle NOT_FOUND = new Vehicle();
+
+    private final boolean enabled;
+    private final Cache<String, Vehicle> cache;
+
+    public VehicleCache(@Value("${apollo.vehicle.cache.enabled:true}") boolean enabled,
+                        @Value("${apollo.vehicle.cache.max-size:100000}") long maxSize,
+                        @Value("${apollo.vehicle.cache.ttl:5m}") Duration ttl,
+                        @Value("${apollo.vehicle.cache.negative-ttl:5s}") Duration negativeTtl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Vehicle>() {
+                    @Override
+                    public long expireAfterCreate(String key, Vehicle value, long currentTime) {
+                        return (value == NOT_FOUND ? negativeTtl : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Vehicle value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Vehicle value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public static String key(String vin) {
+        return vin.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the cached vehicle, or loads it with the upper-cased vin. Concurrent misses for the same vin
+     * share one load. Returns null when the loader finds nothing.
+     */
+    public Vehicle get(String vin, Function<String, Vehicle> loader) {
+        if (!enabled) {
+            return loader.apply(key(vin));
+        }
+        Vehicle vehicle = cache.get(key(vin), k -> {
+            Vehicle loaded = loader.apply(k);
+            return loaded == null ? NOT_FOUND : loaded;
+        });
+        return vehicle == NOT_FOUND ? null : vehicle;
+    }
+
+    /**
+     * Returns the cached vehicle without loading it, or null when it is not cached (or cached as not found).
+     */
+    public Vehicle peek(String vin) {
+        if (!enabled) {
+            return null;
+        }
+        Vehicle vehicle = cache.getIfPresent(key(vin));
+        return vehicle == NOT_FOUND ? null : vehicle;
+    }
+
+    /**
+     * Must be called after the write has committed. An in-flight load for the same vin finishes first and is
+     * then discarded, so a stale row cannot outlive the write.
+     */
+    public void invalidate(String vin) {
+        if (enabled && vin != null) {
+            cache.invalidate(key(vin));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "vehicle");
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+}
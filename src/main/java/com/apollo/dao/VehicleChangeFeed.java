@@ -0,0 +1,82 @@
+package com.apollo.dao;
+
+import com.apollo.model.VehicleChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequenced, bounded log of the vehicle writes committed through this instance. VehicleDAO publishes after
+ * every commit; readers follow it by sequence number. The newest {@code apollo.changes.buffer-size} changes
+ * are kept in a ring, so publishing never waits on a reader: a reader that falls further behind than the
+ * ring (or asks for a sequence this instance never issued, e.g. after a restart) is told it has lost its place.
+ */
+@Component
+public class VehicleChangeFeed implements MeterBinder {
+
+    private final VehicleChange[] ring;
+    private long head;
+
+    public VehicleChangeFeed(@Value("${apollo.changes.buffer-size:10000}") int bufferSize) {
+        this.ring = new VehicleChange[bufferSize];
+    }
+
+    /**
+     * Must be called after the write has committed.
+     */
+    public synchronized VehicleChange publish(VehicleChange.Type type, String vin, Long version) {
+        VehicleChange change = new VehicleChange(++head, type, vin, version, Instant.now());
+        ring[(int) (change.seq() % ring.length)] = change;
+        notifyAll();
+        return change;
+    }
+
+    /**
+     * Sequence number of the newest change, 0 before the first one.
+     */
+    public synchronized long head() {
+        return head;
+    }
+
+    /**
+     * Changes after {@code after}, oldest first and at most {@code max} of them; empty when there are none yet.
+     * Returns null when {@code after} is no longer (or was never) in the ring and the reader must resync.
+     */
+    public synchronized List<VehicleChange> since(long after, int max) {
+        if (after > head || after < head - ring.length) {
+            return null;
+        }
+        int count = (int) Math.min(head - after, max);
+        List<VehicleChange> changes = new ArrayList<>(count);
+        for (long seq = after + 1; seq <= after + count; seq++) {
+            changes.add(ring[(int) (seq % ring.length)]);
+        }
+        return changes;
+    }
+
+    /**
+     * Like {@link #since}, but waits up to {@code timeout} for a change after {@code after}.
+     */
+    public synchronized List<VehicleChange> await(long after, int max, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining;
+        while (head == after && (remaining = deadline - System.nanoTime()) > 0) {
+            wait(Math.max(remaining / 1_000_000, 1));
+        }
+        return since(after, max);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vehicle.changes.head", this, VehicleChangeFeed::head)
+                .description("Sequence number of the newest published vehicle change")
+                .register(registry);
+    }
+}
@@ -1,22 +1,179 @@
 package com.apollo.dao;
 
+import com.apollo.config.ReplicaRouter;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.CompactVehicle;
 import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleChange;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleSearchCriteria;
+import com.apollo.model.VehicleStatsGroup;
+import com.apollo.model.VehicleVersion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 @Repository
+@Timed("vehicle.dao")
 public class VehicleDAO {
 
+    private static final Logger log = LoggerFactory.getLogger(VehicleDAO.class);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private final RowMapper<Vehicle> vehicleRowMapper = new RowMapper<Vehicle>() {
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VehicleCache vehicleCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private VehicleChangeFeed changeFeed;
+
+    @Autowired
+    private VehicleTextIndex textIndex;
+
+    @Autowired(required = false)
+    private ReplicaRouter replicaRouter;
+
+    /**
+     * Present in write-behind mode ({@code apollo.write-behind.enabled}): PUT /vehicle/{vin} updates wait there for
+     * {@link #flushWriteBuffer}, and vin reads see them first.
+     */
+    @Autowired(required = false)
+    private VehicleWriteBuffer writeBuffer;
+
+    private final ReentrantLock writeBufferFlush = new ReentrantLock();
+
+    /**
+     * Reads of {@link #getAllVehicles}, {@link #getVehiclesAfter}, {@link #streamAllVehicles}, {@link #searchVehicles},
+     * vin lookups and versions go to the read replicas when {@code apollo.db.replica.urls} is set, otherwise to the
+     * primary like everything else.
+     */
+    private JdbcTemplate readJdbcTemplate;
+
+    private TransactionTemplate readTransactionTemplate;
+
+    @Value("${apollo.vehicle.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${apollo.vehicle.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${apollo.vehicle.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${apollo.vehicle.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+
+    @Value("${apollo.import.use-copy:true}")
+    private boolean useCopy;
+
+    @Value("${apollo.vehicle.stats.use-summary:true}")
+    private boolean useStatsSummary;
+
+    private volatile Dialect dialect;
+
+    private volatile Boolean statsSummary;
+
+    private volatile Boolean textSearchColumn;
+
+    private volatile Boolean partitioned;
+
+    private static final String INSERT_COLUMNS = "vin, manufacturer_name, description, horse_power, model_name, model_year, purchase_price, fuel_type, version, updated_at";
+
+    /**
+     * Rows of vehicle_table_version. Every write bumps one row at random so concurrent writers rarely
+     * contend, and the collection version is the sum of all rows.
+     */
+    private static final int TABLE_VERSION_SLOTS = 16;
+
+    /**
+     * How long {@link #archiveModelYear} waits for the locks to detach a partition before giving up on the year.
+     */
+    private static final String DETACH_LOCK_TIMEOUT = "5s";
+
+    private static final String COPY_COLUMNS = "vin, manufacturer_name, description, horse_power, model_name, model_year, purchase_price, fuel_type";
+
+    private static final String UPSERT_SET = "manufacturer_name = EXCLUDED.manufacturer_name, description = EXCLUDED.description, " +
+                                             "horse_power = EXCLUDED.horse_power, model_name = EXCLUDED.model_name, model_year = EXCLUDED.model_year, " +
+                                             "purchase_price = EXCLUDED.purchase_price, fuel_type = EXCLUDED.fuel_type, " +
+                                             "version = EXCLUDED.version, updated_at = EXCLUDED.updated_at";
+
+    private final ParameterizedPreparedStatementSetter<Vehicle> updateParameterSetter = (ps, vehicle) -> {
+        ps.setString(1, vehicle.getManufacturerName());
+        ps.setString(2, vehicle.getDescription());
+        ps.setInt(3, vehicle.getHorsePower());
+        ps.setString(4, vehicle.getModelName());
+        ps.setInt(5, vehicle.getModelYear());
+        ps.setBigDecimal(6, vehicle.getPurchasePrice());
+        ps.setString(7, vehicle.getFuelType());
+        ps.setString(8, VehicleCache.key(vehicle.getVin()));
+    };
+
+    private final ParameterizedPreparedStatementSetter<Vehicle> vehicleParameterSetter = (ps, vehicle) -> {
+        ps.setString(1, vehicle.getVin());
+        ps.setString(2, vehicle.getManufacturerName());
+        ps.setString(3, vehicle.getDescription());
+        ps.setInt(4, vehicle.getHorsePower());
+        ps.setString(5, vehicle.getModelName());
+        ps.setInt(6, vehicle.getModelYear());
+        ps.setBigDecimal(7, vehicle.getPurchasePrice());
+        ps.setString(8, vehicle.getFuelType());
+    };
+
+    final RowMapper<Vehicle> vehicleRowMapper = new RowMapper<Vehicle>() {
         @Override
         public Vehicle mapRow(ResultSet rs, int rowNum) throws SQLException {
             Vehicle vehicle = new Vehicle();
@@ -28,18 +185,288 @@ public class VehicleDAO {
             vehicle.setModelYear(rs.getObject("model_year", Integer.class));
             vehicle.setPurchasePrice(rs.getBigDecimal("purchase_price"));
             vehicle.setFuelType(rs.getString("fuel_type"));
+            vehicle.setVersion(rs.getLong("version"));
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            vehicle.setUpdatedAt(updatedAt != null ? updatedAt.toInstant() : null);
             return vehicle;
         }
     };
 
-    public List<Vehicle> getAllVehicles() {
-        String sql = "SELECT * FROM vehicle";
-        return jdbcTemplate.query(sql, vehicleRowMapper);
+    final RowMapper<CompactVehicle> compactVehicleRowMapper = compactVehicleRowMapper(VehicleField.ALL);
+
+    @PostConstruct
+    void initReads() {
+        if (replicaRouter == null) {
+            readJdbcTemplate = jdbcTemplate;
+            readTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        } else {
+            readJdbcTemplate = new JdbcTemplate(replicaRouter.getDataSource());
+            readTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(replicaRouter.getDataSource()));
+        }
+        readTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Reads of a vin written through this instance within the read-your-writes window go to the primary, so a
+     * lagging replica cannot put the old row back into {@link VehicleCache}.
+     */
+    private JdbcTemplate readJdbcTemplate(String key) {
+        return replicaRouter != null && replicaRouter.isRecentlyWritten(key) ? jdbcTemplate : readJdbcTemplate;
+    }
+
+    /**
+     * Bulk reads select only the requested fields, in {@link VehicleField} order, and map them by position into a
+     * CompactVehicle or VehicleJsonRowWriter. Unselected columns are never read, which matters most for the TEXT
+     * description. The price is converted to cents in SQL so no BigDecimal is built per row.
+     */
+    public static String compactColumns(Set<VehicleField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (VehicleField field : inFieldOrder(fields)) {
+            columns.add(field == VehicleField.PURCHASE_PRICE
+                    ? "CAST(purchase_price * 100 AS BIGINT) AS purchase_price_cents"
+                    : field.getColumn());
+        }
+        return columns.toString();
+    }
+
+    public static VehicleField[] inFieldOrder(Set<VehicleField> fields) {
+        return Arrays.stream(VehicleField.values()).filter(fields::contains).toArray(VehicleField[]::new);
+    }
+
+    /**
+     * Maps a {@link #compactColumns} row; unselected fields are left null or zero.
+     */
+    static RowMapper<CompactVehicle> compactVehicleRowMapper(Set<VehicleField> fields) {
+        int[] columns = new int[VehicleField.values().length];
+        VehicleField[] selected = inFieldOrder(fields);
+        for (int i = 0; i < selected.length; i++) {
+            columns[selected[i].ordinal()] = i + 1;
+        }
+        return (rs, rowNum) -> new CompactVehicle(
+                getString(rs, columns[VehicleField.VIN.ordinal()]),
+                getString(rs, columns[VehicleField.MANUFACTURER_NAME.ordinal()]),
+                getString(rs, columns[VehicleField.DESCRIPTION.ordinal()]),
+                getInt(rs, columns[VehicleField.HORSE_POWER.ordinal()]),
+                getString(rs, columns[VehicleField.MODEL_NAME.ordinal()]),
+                getInt(rs, columns[VehicleField.MODEL_YEAR.ordinal()]),
+                columns[VehicleField.PURCHASE_PRICE.ordinal()] > 0 ? rs.getLong(columns[VehicleField.PURCHASE_PRICE.ordinal()]) : 0L,
+                getString(rs, columns[VehicleField.FUEL_TYPE.ordinal()]));
+    }
+
+    private static String getString(ResultSet rs, int column) throws SQLException {
+        return column > 0 ? rs.getString(column) : null;
     }
 
+    private static int getInt(ResultSet rs, int column) throws SQLException {
+        return column > 0 ? rs.getInt(column) : 0;
+    }
+
+    /**
+     * Every vehicle in the default list view, {@link VehicleField#LIST_VIEW}.
+     */
+    public List<CompactVehicle> getAllVehicles() {
+        return getAllVehicles(VehicleField.LIST_VIEW);
+    }
+
+    public List<CompactVehicle> getAllVehicles(Set<VehicleField> fields) {
+        String sql = "SELECT " + compactColumns(fields) + " FROM vehicle";
+        return recordRows("getAllVehicles", readJdbcTemplate.query(sql, compactVehicleRowMapper(fields)));
+    }
+
+    /**
+     * Keyset page in the default list view, {@link VehicleField#LIST_VIEW}.
+     */
+    public List<CompactVehicle> getVehiclesAfter(String after, int limit) {
+        return getVehiclesAfter(after, limit, VehicleField.LIST_VIEW);
+    }
+
+    /**
+     * Keyset page ordered by vin. Pass the last vin of the previous page as {@code after}
+     * (or null for the first page); the primary key index makes every page a range scan.
+     * {@code fields} must include the vin, which is the cursor.
+     */
+    public List<CompactVehicle> getVehiclesAfter(String after, int limit, Set<VehicleField> fields) {
+        int pageSize = Math.min(Math.max(limit, 1), maxPageSize);
+        RowMapper<CompactVehicle> rowMapper = compactVehicleRowMapper(fields);
+        if (after == null) {
+            String sql = "SELECT " + compactColumns(fields) + " FROM vehicle ORDER BY vin LIMIT ?";
+            return recordRows("getVehiclesAfter", readJdbcTemplate.query(sql, rowMapper, pageSize));
+        }
+        String sql = "SELECT " + compactColumns(fields) + " FROM vehicle WHERE vin > ? ORDER BY vin LIMIT ?";
+        return recordRows("getVehiclesAfter", readJdbcTemplate.query(sql, rowMapper, after, pageSize));
+    }
+
+    /**
+     * Runs GET /vehicle/search as one parameterised statement. Only fixed SQL fragments and whitelisted column
+     * names are appended; every value is bound. Manufacturer/year and fuel type predicates are served by the
+     * vehicle_manufacturer_year and vehicle_fuel_type indexes.
+     */
+    public List<Vehicle> searchVehicles(VehicleSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM vehicle WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendPredicate(sql, args, "manufacturer_name = ?", criteria.getManufacturerName());
+        appendPredicate(sql, args, "model_name = ?", criteria.getModelName());
+        appendPredicate(sql, args, "fuel_type = ?", criteria.getFuelType());
+        appendPredicate(sql, args, "model_year >= ?", criteria.getMinModelYear());
+        appendPredicate(sql, args, "model_year <= ?", criteria.getMaxModelYear());
+        appendPredicate(sql, args, "horse_power >= ?", criteria.getMinHorsePower());
+        appendPredicate(sql, args, "horse_power <= ?", criteria.getMaxHorsePower());
+        appendPredicate(sql, args, "purchase_price >= ?", criteria.getMinPurchasePrice());
+        appendPredicate(sql, args, "purchase_price <= ?", criteria.getMaxPurchasePrice());
+
+        VehicleField sortField = VehicleField.fromProperty(criteria.getSort());
+        if (sortField == null) {
+            sortField = VehicleField.VIN;
+        }
+        String direction = "desc".equalsIgnoreCase(criteria.getOrder()) ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(sortField.getColumn()).append(direction);
+        if (sortField != VehicleField.VIN) {
+            sql.append(", vin").append(direction);
+        }
+        sql.append(" LIMIT ?");
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : maxPageSize;
+        args.add(Math.min(Math.max(limit, 1), maxPageSize));
+        return recordRows("searchVehicles", readJdbcTemplate.query(sql.toString(), vehicleRowMapper, args.toArray()));
+    }
+
+    private static void appendPredicate(StringBuilder sql, List<Object> args, String predicate, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(predicate);
+            args.add(value);
+        }
+    }
+
+    /**
+     * Streams every vehicle in the default list view, {@link VehicleField#LIST_VIEW}.
+     */
+    public void streamAllVehicles(JsonGenerator generator) throws IOException {
+        streamAllVehicles(generator, VehicleField.LIST_VIEW);
+    }
+
+    /**
+     * Vehicle counts and price / horse power sums per distinct combination of {@code dimensions}, ordered by them;
+     * with no dimensions, one row for the whole table. Aggregated by the database: on PostgreSQL with the
+     * trigger-maintained vehicle_stats table from database_config.txt this reads one row per group, otherwise it
+     * scans vehicle. {@code dimensions} may only hold manufacturer name, model name, model year and fuel type.
+     */
+    public List<VehicleStatsGroup> getStats(Set<VehicleField> dimensions) {
+        VehicleField[] fields = inFieldOrder(dimensions);
+        StringJoiner columns = new StringJoiner(", ");
+        for (VehicleField field : fields) {
+            columns.add(field.getColumn());
+        }
+        String select = fields.length > 0 ? columns + ", " : "";
+        String sql;
+        if (hasStatsSummary()) {
+            sql = "SELECT " + select + "SUM(vehicle_count), SUM(sum_purchase_price), SUM(sum_horse_power) FROM vehicle_stats";
+        } else {
+            sql = "SELECT " + select + "COUNT(*), SUM(purchase_price), SUM(horse_power) FROM vehicle";
+        }
+        if (fields.length > 0) {
+            sql += " GROUP BY " + columns + " ORDER BY " + columns;
+        }
+        List<VehicleStatsGroup> groups = readJdbcTemplate.query(sql, (rs, rowNum) -> {
+            String manufacturerName = null;
+            String modelName = null;
+            Integer modelYear = null;
+            String fuelType = null;
+            for (int i = 0; i < fields.length; i++) {
+                switch (fields[i]) {
+                    case MANUFACTURER_NAME -> manufacturerName = rs.getString(i + 1);
+                    case MODEL_NAME -> modelName = rs.getString(i + 1);
+                    case MODEL_YEAR -> modelYear = rs.getInt(i + 1);
+                    case FUEL_TYPE -> fuelType = rs.getString(i + 1);
+                    default -> throw new IllegalArgumentException("Cannot group vehicles by " + fields[i].getProperty());
+                }
+            }
+            BigDecimal sumPurchasePrice = rs.getBigDecimal(fields.length + 2);
+            return new VehicleStatsGroup(manufacturerName, modelName, modelYear, fuelType, rs.getLong(fields.length + 1),
+                    sumPurchasePrice != null ? sumPurchasePrice : BigDecimal.ZERO, rs.getLong(fields.length + 3));
+        });
+        // Summary rows of groups whose vehicles are all gone stay behind with a zero count
+        groups.removeIf(group -> group.count() == 0);
+        return recordRows("getStats", groups);
+    }
+
+    private boolean hasStatsSummary() {
+        if (statsSummary == null) {
+            statsSummary = useStatsSummary && dialect() == Dialect.POSTGRESQL
+                    && Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass('vehicle_stats') IS NOT NULL", Boolean.class));
+        }
+        return statsSummary;
+    }
+
+    /**
+     * Whether vehicle has the search_vector column and GIN index of database_config.txt, so
+     * {@link #searchText} can run.
+     */
+    public boolean hasTextSearchColumn() {
+        if (textSearchColumn == null) {
+            textSearchColumn = dialect() == Dialect.POSTGRESQL && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'vehicle' AND column_name = 'search_vector')",
+                    Boolean.class));
+        }
+        return textSearchColumn;
+    }
+
+    /**
+     * PostgreSQL full-text search: vehicles whose search_vector matches every word as a prefix, ranked by ts_rank
+     * (model name words weigh more than description words), then by vin. {@code words} must come from
+     * {@link VehicleTextIndex#tokenize}, so they hold only letters and digits.
+     */
+    public List<Vehicle> searchText(List<String> words, int limit) {
+        StringJoiner query = new StringJoiner(" & ");
+        for (String word : words) {
+            query.add(word + ":*");
+        }
+        String sql = "SELECT vehicle.* FROM vehicle, to_tsquery('simple', ?) query WHERE search_vector @@ query " +
+                     "ORDER BY ts_rank(search_vector, query) DESC, vin LIMIT ?";
+        return recordRows("searchText", readJdbcTemplate.query(sql, vehicleRowMapper, query.toString(), limit));
+    }
+
+    /**
+     * Streams the vin, model name, description and version of every vehicle into the {@link VehicleTextIndex}
+     * build that has been started. Reads the primary, so no write committed before the build is missed.
+     */
+    public void loadTextIndex() {
+        transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT vin, model_name, description, version FROM vehicle",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> textIndex.load(rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4))));
+    }
+
+    /**
+     * Writes every vehicle to the generator as a JSON array straight off the ResultSet, with no Vehicle
+     * objects or list in between. Runs in a read-only transaction so PostgreSQL honours the fetch size
+     * with a server-side cursor.
+     */
+    public void streamAllVehicles(JsonGenerator generator, Set<VehicleField> fields) throws IOException {
+        String sql = "SELECT " + compactColumns(fields) + " FROM vehicle";
+        VehicleJsonRowWriter writer = new VehicleJsonRowWriter(generator, fields);
+        generator.writeStartArray();
+        readTransactionTemplate.executeWithoutResult(tx -> readJdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, writer));
+        generator.writeEndArray();
+        meterRegistry.summary("vehicle.dao.rows", "method", "streamAllVehicles").record(writer.getRows());
+    }
+
+    /**
+     * Case-insensitive lookup served from {@link VehicleCache} when possible. In write-behind mode a pending
+     * update is returned as it was accepted, without a version.
+     */
     public Vehicle getVehicleByVin(String vin) {
-        String sql = "SELECT * FROM vehicle WHERE vin = ?";
-        List<Vehicle> vehicles = jdbcTemplate.query(sql, vehicleRowMapper, vin);
+        Vehicle pending = writeBuffer != null ? writeBuffer.peek(vin) : null;
+        return pending != null ? pending : vehicleCache.get(vin, this::findVehicleByVin);
+    }
+
+    private Vehicle findVehicleByVin(String upperVin) {
+        String sql = "SELECT * FROM vehicle WHERE " + vinEquals();
+        List<Vehicle> vehicles = readJdbcTemplate(upperVin).query(sql, vehicleRowMapper, upperVin);
         if (vehicles.isEmpty()){
             return null;
         } else {
@@ -47,34 +474,143 @@ public class VehicleDAO {
         }
     }
 
-    public Vehicle insertVehicle(Vehicle vehicle) {
-        Vehicle existingVehicle = getVehicleByVin(vehicle.getVin());
-        if (existingVehicle != null) {
-            return null;
+    /**
+     * Case-insensitive multi-get, keyed by {@link VehicleCache#key}; vins with no vehicle are left out. Cached
+     * vehicles are used as they are and the rest are read with one {@code = ANY(?)} array query per
+     * {@code apollo.vehicle.lookup.chunk-size} vins, so the statement text is the same for any number of vins.
+     * Rows read here are not added to the cache: unlike {@link VehicleCache#get}, a bulk put could race a
+     * concurrent write's invalidation and keep the old row for a whole TTL.
+     */
+    public Map<String, Vehicle> getVehiclesByVins(Collection<String> vins) {
+        Map<String, Vehicle> found = new HashMap<>();
+        // Recently written vins go to the primary, everything else to the read template
+        Map<JdbcTemplate, List<String>> misses = new IdentityHashMap<>();
+        for (String vin : vins) {
+            String key = VehicleCache.key(vin);
+            if (found.containsKey(key)) {
+                continue;
+            }
+            Vehicle cached = writeBuffer != null ? writeBuffer.peek(key) : null;
+            if (cached == null) {
+                cached = vehicleCache.peek(key);
+            }
+            found.put(key, cached);
+            if (cached == null) {
+                misses.computeIfAbsent(readJdbcTemplate(key), template -> new ArrayList<>()).add(key);
+            }
         }
-        String sql = "INSERT INTO vehicle (vin, manufacturer_name, description, horse_power, model_name, model_year, purchase_price, fuel_type) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sql,
-                vehicle.getVin(),
-                vehicle.getManufacturerName(),
-                vehicle.getDescription(),
-                vehicle.getHorsePower(),
-                vehicle.getModelName(),
-                vehicle.getModelYear(),
-                vehicle.getPurchasePrice(),
-                vehicle.getFuelType());
-        return getVehicleByVin(vehicle.getVin());
+        found.values().removeIf(Objects::isNull);
+        String sql = "SELECT * FROM vehicle WHERE " + vinIn();
+        for (Map.Entry<JdbcTemplate, List<String>> entry : misses.entrySet()) {
+            List<String> keys = entry.getValue();
+            for (int from = 0; from < keys.size(); from += lookupChunkSize) {
+                Object[] chunk = keys.subList(from, Math.min(from + lookupChunkSize, keys.size())).toArray();
+                List<Vehicle> vehicles = entry.getKey().query(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql);
+                    ps.setArray(1, con.createArrayOf("varchar", chunk));
+                    return ps;
+                }, vehicleRowMapper);
+                for (Vehicle vehicle : recordRows("getVehiclesByVins", vehicles)) {
+                    found.put(VehicleCache.key(vehicle.getVin()), vehicle);
+                }
+            }
+        }
+        return found;
     }
 
-    public Vehicle updateVehicle(String vin, Vehicle vehicle) {
-        Vehicle existingVehicle = getVehicleByVin(vehicle.getVin());
-        if (existingVehicle != null) {
+    /**
+     * Version of the vehicle without reading the whole row: taken from {@link VehicleCache} when the vehicle is
+     * cached, otherwise from the version columns alone. Returns null when no vehicle has the vin, and in
+     * write-behind mode while an update of it is pending, since its next version is not known yet.
+     */
+    public VehicleVersion getVehicleVersion(String vin) {
+        if (writeBuffer != null && writeBuffer.isPending(vin)) {
             return null;
         }
+        Vehicle cached = vehicleCache.peek(vin);
+        if (cached != null && cached.getVersion() != null) {
+            return VehicleVersion.of(cached);
+        }
+        return findVehicleVersion(readJdbcTemplate(VehicleCache.key(vin)), vin);
+    }
+
+    private VehicleVersion findVehicleVersion(JdbcTemplate template, String vin) {
+        String sql = "SELECT version, updated_at FROM vehicle WHERE " + vinEquals();
+        List<VehicleVersion> versions = template.query(sql,
+                (rs, rowNum) -> new VehicleVersion(rs.getLong(1), rs.getTimestamp(2).toInstant()), VehicleCache.key(vin));
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    /**
+     * Sum of vehicle_table_version. It grows after every committed insert, update or delete, so it is a
+     * cheap version for the whole collection.
+     */
+    public long getTableVersion() {
+        Long version = readJdbcTemplate.queryForObject("SELECT SUM(version) FROM vehicle_table_version", Long.class);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Drops the cached vehicle after a committed write and, with replicas, keeps its reads on the primary for the
+     * read-your-writes window.
+     */
+    private void invalidate(String vin) {
+        vehicleCache.invalidate(vin);
+        if (replicaRouter != null && vin != null) {
+            replicaRouter.recordWrite(VehicleCache.key(vin));
+        }
+    }
+
+    /**
+     * Runs after the write has committed, so a reader that sees the new table version also sees the write.
+     */
+    private void bumpTableVersion() {
+        jdbcTemplate.update("UPDATE vehicle_table_version SET version = version + 1 WHERE slot = ?",
+                ThreadLocalRandom.current().nextInt(TABLE_VERSION_SLOTS));
+    }
+
+    /**
+     * Inserts in one round trip and returns the stored row. Duplicates are left to the vin indexes and
+     * surface as {@link DuplicateKeyException}.
+     */
+    public Vehicle insertVehicle(Vehicle vehicle) {
+        String sql = insertSql();
+        PreparedStatementSetter setter = ps -> vehicleParameterSetter.setValues(ps, vehicle);
+        Vehicle inserted;
+        switch (dialect()) {
+            case POSTGRESQL:
+                inserted = jdbcTemplate.query(sql + " RETURNING *", setter, vehicleRowMapper).get(0);
+                break;
+            case H2:
+                inserted = jdbcTemplate.query("SELECT * FROM FINAL TABLE (" + sql + ")", setter, vehicleRowMapper).get(0);
+                break;
+            default:
+                jdbcTemplate.update(sql, setter);
+                inserted = vehicle;
+        }
+        invalidate(vehicle.getVin());
+        textIndex.put(inserted.getVin(), inserted.getModelName(), inserted.getDescription(), inserted.getVersion());
+        bumpTableVersion();
+        changeFeed.publish(VehicleChange.Type.CREATED, inserted.getVin(), inserted.getVersion());
+        return inserted;
+    }
 
-        String sql = "UPDATE vehicle SET manufacturer_name = ?, description = ?, horse_power = ?, model_name = ?, " +
-                     "model_year = ?, purchase_price = ?, fuel_type = ? WHERE vin = ?";
-        jdbcTemplate.update(sql,
+    /**
+     * Updates in one round trip and returns the stored row, or null when no vehicle has the vin.
+     */
+    public Vehicle updateVehicle(String vin, Vehicle vehicle) {
+        return updateVehicle(vin, vehicle, null);
+    }
+
+    /**
+     * Like {@link #updateVehicle(String, Vehicle)}, but only applies when the stored version equals
+     * {@code expectedVersion} (if not null). Throws {@link OptimisticLockingFailureException} when the vehicle
+     * exists at another version.
+     */
+    public Vehicle updateVehicle(String vin, Vehicle vehicle, Long expectedVersion) {
+        flushPending(List.of(vin));
+        String sql = updateSql();
+        List<Object> argList = new ArrayList<>(Arrays.asList(
                 vehicle.getManufacturerName(),
                 vehicle.getDescription(),
                 vehicle.getHorsePower(),
@@ -82,13 +618,636 @@ public class VehicleDAO {
                 vehicle.getModelYear(),
                 vehicle.getPurchasePrice(),
                 vehicle.getFuelType(),
-                vin);
-        return getVehicleByVin(vin);
+                VehicleCache.key(vin)));
+        if (expectedVersion != null) {
+            sql += " AND version = ?";
+            argList.add(expectedVersion);
+        }
+        Object[] args = argList.toArray();
+        List<Vehicle> vehicles;
+        switch (dialect()) {
+            case POSTGRESQL:
+                vehicles = jdbcTemplate.query(sql + " RETURNING *", vehicleRowMapper, args);
+                break;
+            case H2:
+                vehicles = jdbcTemplate.query("SELECT * FROM FINAL TABLE (" + sql + ")", vehicleRowMapper, args);
+                break;
+            default:
+                vehicles = new ArrayList<>();
+                if (jdbcTemplate.update(sql, args) > 0) {
+                    vehicles.add(new Vehicle(vin, vehicle.getManufacturerName(), vehicle.getDescription(), vehicle.getHorsePower(),
+                            vehicle.getModelName(), vehicle.getModelYear(), vehicle.getPurchasePrice(), vehicle.getFuelType()));
+                }
+        }
+        invalidate(vin);
+        if (vehicles.isEmpty()) {
+            if (expectedVersion != null && findVehicleVersion(jdbcTemplate, vin) != null) {
+                throw new OptimisticLockingFailureException("Vehicle " + vin + " is no longer at version " + expectedVersion);
+            }
+            return null;
+        }
+        Vehicle updated = vehicles.get(0);
+        textIndex.put(updated.getVin(), updated.getModelName(), updated.getDescription(), updated.getVersion());
+        bumpTableVersion();
+        changeFeed.publish(VehicleChange.Type.UPDATED, updated.getVin(), updated.getVersion());
+        return updated;
     }
 
     public void deleteVehicle(String vin) {
-        String sql = "DELETE FROM vehicle WHERE vin = ?";
-        jdbcTemplate.update(sql, vin);
+        flushPending(List.of(vin));
+        String sql = "DELETE FROM vehicle WHERE " + vinEquals();
+        int deleted = jdbcTemplate.update(sql, VehicleCache.key(vin));
+        invalidate(vin);
+        if (deleted > 0) {
+            textIndex.remove(vin);
+            bumpTableVersion();
+            changeFeed.publish(VehicleChange.Type.DELETED, vin, null);
+        }
+    }
+
+    /**
+     * Model years older than {@code modelYear} that still have vehicles, oldest first. On the partitioned layout this
+     * includes a year whose partition was detached by an {@link #archiveModelYear} that did not finish.
+     */
+    public List<Integer> getModelYearsBefore(int modelYear) {
+        if (isPartitioned()) {
+            return jdbcTemplate.queryForList(
+                    "SELECT model_year FROM (SELECT DISTINCT model_year FROM vehicle WHERE model_year < ? " +
+                    "UNION SELECT SUBSTR(relname, 10)::INTEGER FROM pg_class " +
+                    "WHERE relkind = 'r' AND NOT relispartition AND relname ~ '^vehicle_y[0-9]+$' AND pg_table_is_visible(oid)) y " +
+                    "WHERE model_year < ? ORDER BY model_year",
+                    Integer.class, modelYear, modelYear);
+        }
+        return jdbcTemplate.queryForList("SELECT DISTINCT model_year FROM vehicle WHERE model_year < ? ORDER BY model_year",
+                Integer.class, modelYear);
+    }
+
+    /**
+     * Adds the missing one-year partitions from {@code firstYear} to {@code lastYear} on the partitioned layout
+     * and returns how many were added; does nothing elsewhere.
+     */
+    public int addYearPartitions(int firstYear, int lastYear) {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        Integer added = jdbcTemplate.queryForObject("SELECT vehicle_add_year_partitions(?, ?)", Integer.class, firstYear, lastYear);
+        return added != null ? added : 0;
+    }
+
+    /**
+     * Moves the vehicles of {@code modelYear} out of vehicle and returns how many moved. {@code archiver} is handed
+     * them in vin order, up to {@code chunkSize} at a time, and must write them through this DAO's DataSource so its
+     * writes commit or roll back with the move.
+     * <p>
+     * When the year has its own partition (database_config.txt) the partition is first detached in a transaction of
+     * its own, then read, archived and dropped in a second one; between the two its vehicles are neither live nor
+     * archived, and a detached partition left by a failure is picked up by the next run. Otherwise, in one
+     * transaction, each chunk is deleted row by row at the version it was read, and a vehicle updated meanwhile stays
+     * live and is left out of the archive.
+     */
+    public int archiveModelYear(int modelYear, int chunkSize, Consumer<List<Vehicle>> archiver) {
+        // Pending write-behind updates of the year land first, so the archive holds them
+        flushWriteBuffer();
+        String partition = "vehicle_y" + modelYear;
+        // Null without such a table, false once detached
+        Boolean attached = isPartitioned() ? jdbcTemplate.queryForObject(
+                "SELECT (SELECT relispartition FROM pg_class WHERE oid = to_regclass(?))", Boolean.class, partition) : null;
+        boolean ownPartition = attached != null;
+        if (Boolean.TRUE.equals(attached)) {
+            // DETACH locks vehicle, then the partition: the order every write by vin takes them in, so it cannot
+            // deadlock with one, and both locks go with the commit. Locking only the partition for the whole copy
+            // and dropping it from there would take them the other way round. The timeout keeps a DETACH stuck
+            // behind a long query from queueing all vehicle traffic behind itself.
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + DETACH_LOCK_TIMEOUT + "'");
+                jdbcTemplate.execute("ALTER TABLE vehicle DETACH PARTITION " + partition);
+            });
+        }
+        String deleteSql = "DELETE FROM vehicle WHERE " + vinEquals() + " AND version = ?";
+        List<String> archived = transactionTemplate.execute(tx -> {
+            List<String> vins = new ArrayList<>();
+            List<Vehicle> chunk = new ArrayList<>(chunkSize);
+            Consumer<List<Vehicle>> move = vehicles -> {
+                List<Vehicle> moved = vehicles;
+                if (!ownPartition) {
+                    int[][] counts = jdbcTemplate.batchUpdate(deleteSql, vehicles, vehicles.size(), (ps, vehicle) -> {
+                        ps.setString(1, VehicleCache.key(vehicle.getVin()));
+                        ps.setLong(2, vehicle.getVersion());
+                    });
+                    moved = new ArrayList<>(vehicles.size());
+                    for (int i = 0; i < vehicles.size(); i++) {
+                        if (counts[0][i] != 0) {
+                            moved.add(vehicles.get(i));
+                        }
+                    }
+                }
+                if (!moved.isEmpty()) {
+                    archiver.accept(moved);
+                    moved.forEach(vehicle -> vins.add(vehicle.getVin()));
+                }
+            };
+            String sql = ownPartition ? "SELECT * FROM " + partition + " ORDER BY vin" : "SELECT * FROM vehicle WHERE model_year = ? ORDER BY vin";
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                if (!ownPartition) {
+                    ps.setInt(1, modelYear);
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                chunk.add(vehicleRowMapper.mapRow(rs, 0));
+                if (chunk.size() == chunkSize) {
+                    move.accept(List.copyOf(chunk));
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                move.accept(List.copyOf(chunk));
+            }
+            if (ownPartition) {
+                // The detached table is no longer reachable through vehicle, so nothing else locks it. Detaching
+                // fires no row triggers: undo what they counted for its rows, and only those, as vehicles of the
+                // year may have been added to vehicle_default since.
+                jdbcTemplate.update("DELETE FROM vehicle_vin d USING " + partition + " p WHERE d.vin_key = UPPER(p.vin)");
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass('vehicle_stats') IS NOT NULL", Boolean.class))) {
+                    jdbcTemplate.update("UPDATE vehicle_stats s SET vehicle_count = s.vehicle_count - p.vehicle_count, " +
+                                        "sum_purchase_price = s.sum_purchase_price - p.sum_purchase_price, " +
+                                        "sum_horse_power = s.sum_horse_power - p.sum_horse_power " +
+                                        "FROM (SELECT manufacturer_name, model_name, model_year, fuel_type, COUNT(*) AS vehicle_count, " +
+                                        "SUM(purchase_price) AS sum_purchase_price, SUM(horse_power) AS sum_horse_power FROM " + partition +
+                                        " GROUP BY manufacturer_name, model_name, model_year, fuel_type) p " +
+                                        "WHERE s.manufacturer_name = p.manufacturer_name AND s.model_name = p.model_name " +
+                                        "AND s.model_year = p.model_year AND s.fuel_type = p.fuel_type");
+                }
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            return vins;
+        });
+        for (String vin : archived) {
+            invalidate(vin);
+            textIndex.remove(vin);
+            changeFeed.publish(VehicleChange.Type.ARCHIVED, vin, null);
+        }
+        if (!archived.isEmpty()) {
+            bumpTableVersion();
+        }
+        return archived.size();
+    }
+
+    public boolean hasWriteBuffer() {
+        return writeBuffer != null;
+    }
+
+    /**
+     * Write-behind update: logs the vehicle in the {@link VehicleWriteBuffer}, replacing any pending update of the
+     * vin, and returns it as accepted (stored vin, no version), or null when no vehicle has the vin. It reaches the
+     * database with the next {@link #flushWriteBuffer}.
+     */
+    public Vehicle bufferUpdate(String vin, Vehicle vehicle) {
+        Vehicle current = getVehicleByVin(vin);
+        if (current == null) {
+            return null;
+        }
+        Vehicle accepted = new Vehicle(current.getVin(), vehicle.getManufacturerName(), vehicle.getDescription(), vehicle.getHorsePower(),
+                vehicle.getModelName(), vehicle.getModelYear(), vehicle.getPurchasePrice(), vehicle.getFuelType());
+        writeBuffer.append(accepted);
+        return accepted;
+    }
+
+    /**
+     * Writes every pending write-behind update with one JDBC batch and commit per {@code apollo.vehicle.batch-size}
+     * vehicles, and returns how many rows changed. Updates of vehicles deleted meanwhile are dropped. A chunk the
+     * database rejects is retried row by row and only the rows that still fail are dropped; when the database
+     * cannot be reached the updates go back into the buffer and the exception is thrown.
+     */
+    public int flushWriteBuffer() {
+        if (writeBuffer == null) {
+            return 0;
+        }
+        writeBufferFlush.lock();
+        try {
+            VehicleWriteBuffer.Batch batch = writeBuffer.drain();
+            if (batch == null) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            List<Vehicle> vehicles = new ArrayList<>(batch.getVehicles());
+            List<Vehicle> updated = new ArrayList<>(vehicles.size());
+            String sql = updateSql();
+            try {
+                for (int from = 0; from < vehicles.size(); from += batchSize) {
+                    List<Vehicle> chunk = vehicles.subList(from, Math.min(from + batchSize, vehicles.size()));
+                    updated.addAll(flushChunk(sql, chunk));
+                }
+            } catch (RuntimeException e) {
+                batch.restore();
+                throw e;
+            }
+            for (Vehicle vehicle : vehicles) {
+                invalidate(vehicle.getVin());
+            }
+            List<Vehicle> stored = recache(updated);
+            for (Vehicle vehicle : stored) {
+                textIndex.put(vehicle.getVin(), vehicle.getModelName(), vehicle.getDescription(), vehicle.getVersion());
+            }
+            if (!stored.isEmpty()) {
+                bumpTableVersion();
+                for (Vehicle vehicle : stored) {
+                    changeFeed.publish(VehicleChange.Type.UPDATED, vehicle.getVin(), vehicle.getVersion());
+                }
+            }
+            batch.commit();
+            meterRegistry.timer("vehicle.writebehind.flush").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("vehicle.writebehind.flushed").increment(updated.size());
+            meterRegistry.counter("vehicle.writebehind.dropped").increment(vehicles.size() - updated.size());
+            return updated.size();
+        } finally {
+            writeBufferFlush.unlock();
+        }
+    }
+
+    private List<Vehicle> flushChunk(String sql, List<Vehicle> chunk) {
+        List<Vehicle> updated = new ArrayList<>(chunk.size());
+        try {
+            int[][] counts = transactionTemplate.execute(tx -> jdbcTemplate.batchUpdate(sql, chunk, chunk.size(), updateParameterSetter));
+            for (int i = 0; i < chunk.size(); i++) {
+                int count = counts[0][i];
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    updated.add(chunk.get(i));
+                }
+            }
+        } catch (DataAccessResourceFailureException | CannotCreateTransactionException | TransientDataAccessException e) {
+            throw e;
+        } catch (DataAccessException e) {
+            for (Vehicle vehicle : chunk) {
+                try {
+                    if (jdbcTemplate.update(sql, ps -> updateParameterSetter.setValues(ps, vehicle)) > 0) {
+                        updated.add(vehicle);
+                    }
+                } catch (DataAccessResourceFailureException | CannotCreateTransactionException | TransientDataAccessException f) {
+                    throw f;
+                } catch (DataAccessException f) {
+                    log.warn("Dropping write-behind update of {}: {}", vehicle.getVin(), f.getMessage());
+                }
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Reads flushed vehicles back from the primary, one {@code = ANY(?)} query per
+     * {@code apollo.vehicle.lookup.chunk-size} vins, and caches them, so the next update of a hot vin does not read
+     * it again and the index and change feed get the versions the database assigned. Runs before the batch is
+     * committed: the vins still count as pending, so a synchronous write to one of them waits for this flush and
+     * its invalidation lands after the put.
+     */
+    private List<Vehicle> recache(List<Vehicle> updated) {
+        List<Vehicle> stored = new ArrayList<>(updated.size());
+        String sql = "SELECT * FROM vehicle WHERE " + vinIn();
+        for (int from = 0; from < updated.size(); from += lookupChunkSize) {
+            Object[] chunk = updated.subList(from, Math.min(from + lookupChunkSize, updated.size())).stream()
+                    .map(vehicle -> VehicleCache.key(vehicle.getVin()))
+                    .toArray();
+            List<Vehicle> vehicles = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setArray(1, con.createArrayOf("varchar", chunk));
+                return ps;
+            }, vehicleRowMapper);
+            for (Vehicle vehicle : vehicles) {
+                vehicleCache.get(vehicle.getVin(), key -> vehicle);
+                stored.add(vehicle);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Flushes the write buffer first when one of the vins has a pending update, so a synchronous write to it lands
+     * after the update it follows instead of being overwritten by it later.
+     */
+    private void flushPending(Collection<String> vins) {
+        if (writeBuffer == null) {
+            return;
+        }
+        for (String vin : vins) {
+            if (writeBuffer.isPending(vin)) {
+                flushWriteBuffer();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes vehicles in chunks of {@code apollo.vehicle.batch-size}, one JDBC batch and one commit per chunk,
+     * and returns a status for every vehicle in input order. A chunk the database rejects is rolled back and
+     * retried row by row so one bad vehicle only fails itself.
+     */
+    public List<BatchItemResult.Status> insertVehicles(List<Vehicle> vehicles, boolean upsert) {
+        if (upsert) {
+            flushPending(vehicles.stream().map(Vehicle::getVin).toList());
+        }
+        String sql = batchSql(upsert);
+        List<BatchItemResult.Status> statuses = new ArrayList<>(vehicles.size());
+        for (int from = 0; from < vehicles.size(); from += batchSize) {
+            List<Vehicle> chunk = vehicles.subList(from, Math.min(from + batchSize, vehicles.size()));
+            List<BatchItemResult.Status> chunkStatuses = sql != null ? writeChunk(sql, chunk, upsert) : upsertChunk(chunk);
+            statuses.addAll(chunkStatuses);
+            for (Vehicle vehicle : chunk) {
+                invalidate(vehicle.getVin());
+            }
+            if (chunkStatuses.contains(BatchItemResult.Status.CREATED) || chunkStatuses.contains(BatchItemResult.Status.UPSERTED)) {
+                bumpTableVersion();
+                publishWritten(chunk, chunkStatuses);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Writes one import chunk. On PostgreSQL the chunk is streamed with COPY into a session temp table and moved
+     * into vehicle with a single INSERT ... SELECT; a chunk COPY cannot write (for example, an upsert naming the
+     * same vin twice) falls back to {@link #insertVehicles}. Other databases always use JDBC batches.
+     */
+    public List<BatchItemResult.Status> importVehicles(List<Vehicle> vehicles, boolean upsert) {
+        if (!useCopy || dialect() != Dialect.POSTGRESQL) {
+            return insertVehicles(vehicles, upsert);
+        }
+        if (upsert) {
+            flushPending(vehicles.stream().map(Vehicle::getVin).toList());
+        }
+        Set<String> written;
+        try {
+            written = transactionTemplate.execute(tx -> jdbcTemplate.execute((ConnectionCallback<Set<String>>) con -> copyChunk(con, vehicles, upsert)));
+        } catch (DataAccessException e) {
+            return insertVehicles(vehicles, upsert);
+        }
+        List<BatchItemResult.Status> statuses = new ArrayList<>(vehicles.size());
+        Set<String> seen = new HashSet<>();
+        for (Vehicle vehicle : vehicles) {
+            String key = VehicleCache.key(vehicle.getVin());
+            // A vin repeated within the chunk was only written once, by its first row
+            if (seen.add(key) && written.contains(key)) {
+                statuses.add(upsert ? BatchItemResult.Status.UPSERTED : BatchItemResult.Status.CREATED);
+            } else {
+                statuses.add(BatchItemResult.Status.DUPLICATE);
+            }
+            invalidate(vehicle.getVin());
+        }
+        if (!written.isEmpty()) {
+            bumpTableVersion();
+            publishWritten(vehicles, statuses);
+        }
+        return statuses;
+    }
+
+    /**
+     * Publishes the vehicles of a committed batch that were written and indexes their text. Batch writes do not
+     * read back the stored rows, so these changes carry no version.
+     */
+    private void publishWritten(List<Vehicle> vehicles, List<BatchItemResult.Status> statuses) {
+        for (int i = 0; i < vehicles.size(); i++) {
+            BatchItemResult.Status status = statuses.get(i);
+            if (status == BatchItemResult.Status.CREATED || status == BatchItemResult.Status.UPSERTED) {
+                Vehicle vehicle = vehicles.get(i);
+                textIndex.put(vehicle.getVin(), vehicle.getModelName(), vehicle.getDescription(), null);
+            }
+            switch (status) {
+                case CREATED -> changeFeed.publish(VehicleChange.Type.CREATED, vehicles.get(i).getVin(), null);
+                case UPSERTED -> changeFeed.publish(VehicleChange.Type.UPSERTED, vehicles.get(i).getVin(), null);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private Set<String> copyChunk(Connection con, List<Vehicle> vehicles, boolean upsert) throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("CREATE TEMP TABLE IF NOT EXISTS vehicle_import (vin VARCHAR(17), manufacturer_name VARCHAR(255), " +
+                              "description TEXT, horse_power INTEGER, model_name VARCHAR(255), model_year INTEGER, " +
+                              "purchase_price DECIMAL(10, 2), fuel_type VARCHAR(50)) ON COMMIT DELETE ROWS");
+        }
+        try {
+            con.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY vehicle_import (" + COPY_COLUMNS + ") FROM STDIN (FORMAT csv)", new StringReader(toCsv(vehicles)));
+        } catch (IOException e) {
+            throw new SQLException("COPY into vehicle_import failed", e);
+        }
+        String insert = "INSERT INTO vehicle (" + INSERT_COLUMNS + ") SELECT " + COPY_COLUMNS + ", " + nextVersion() +
+                        ", CURRENT_TIMESTAMP FROM vehicle_import ";
+        Set<String> written = new HashSet<>();
+        if (!isPartitioned()) {
+            collectVins(con, insert + (upsert ? "ON CONFLICT ((UPPER(vin))) DO UPDATE SET " + UPSERT_SET : "ON CONFLICT DO NOTHING") +
+                             " RETURNING vin", written);
+            return written;
+        }
+        // No unique index covers vin alone: update the vins vehicle_vin knows, then insert the others
+        if (upsert) {
+            collectVins(con, "UPDATE vehicle SET manufacturer_name = i.manufacturer_name, description = i.description, " +
+                             "horse_power = i.horse_power, model_name = i.model_name, model_year = i.model_year, " +
+                             "purchase_price = i.purchase_price, fuel_type = i.fuel_type, version = " + nextVersion() + ", " +
+                             "updated_at = CURRENT_TIMESTAMP FROM vehicle_import i, vehicle_vin d " +
+                             "WHERE d.vin_key = UPPER(i.vin) AND UPPER(vehicle.vin) = d.vin_key AND vehicle.model_year = d.model_year " +
+                             "RETURNING vehicle.vin", written);
+        }
+        collectVins(con, insert + "WHERE NOT EXISTS (SELECT 1 FROM vehicle_vin WHERE vin_key = UPPER(vehicle_import.vin)) " +
+                         "ON CONFLICT DO NOTHING RETURNING vin", written);
+        return written;
+    }
+
+    private static void collectVins(Connection con, String sql, Set<String> vins) throws SQLException {
+        try (Statement statement = con.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                vins.add(VehicleCache.key(rs.getString(1)));
+            }
+        }
+    }
+
+    private static String toCsv(List<Vehicle> vehicles) {
+        StringBuilder csv = new StringBuilder(vehicles.size() * 128);
+        for (Vehicle vehicle : vehicles) {
+            appendCsv(csv, vehicle.getVin()).append(',');
+            appendCsv(csv, vehicle.getManufacturerName()).append(',');
+            appendCsv(csv, vehicle.getDescription()).append(',');
+            csv.append(vehicle.getHorsePower()).append(',');
+            appendCsv(csv, vehicle.getModelName()).append(',');
+            csv.append(vehicle.getModelYear()).append(',');
+            csv.append(vehicle.getPurchasePrice().toPlainString()).append(',');
+            appendCsv(csv, vehicle.getFuelType()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static StringBuilder appendCsv(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private List<BatchItemResult.Status> writeChunk(String sql, List<Vehicle> chunk, boolean upsert) {
+        List<BatchItemResult.Status> statuses = new ArrayList<>(chunk.size());
+        try {
+            int[][] counts = transactionTemplate.execute(tx -> jdbcTemplate.batchUpdate(sql, chunk, chunk.size(), vehicleParameterSetter));
+            for (int count : counts[0]) {
+                statuses.add(toStatus(count, upsert));
+            }
+        } catch (DataAccessException e) {
+            statuses.clear();
+            for (Vehicle vehicle : chunk) {
+                statuses.add(writeOne(sql, vehicle, upsert));
+            }
+        }
+        return statuses;
+    }
+
+    private BatchItemResult.Status writeOne(String sql, Vehicle vehicle, boolean upsert) {
+        try {
+            int count = jdbcTemplate.update(sql, ps -> vehicleParameterSetter.setValues(ps, vehicle));
+            return toStatus(count, upsert);
+        } catch (DuplicateKeyException e) {
+            return BatchItemResult.Status.DUPLICATE;
+        } catch (DataAccessException e) {
+            return BatchItemResult.Status.FAILED;
+        }
+    }
+
+    /**
+     * Upsert without a single-statement form: one JDBC batch of updates by vin, then one of inserts for the
+     * vehicles no row matched, in one transaction. A chunk the database rejects (for example, a vin inserted
+     * meanwhile) is retried row by row.
+     */
+    private List<BatchItemResult.Status> upsertChunk(List<Vehicle> chunk) {
+        String updateSql = updateSql();
+        String insertSql = insertSql();
+        try {
+            return transactionTemplate.execute(tx -> upsertRows(updateSql, insertSql, chunk));
+        } catch (DataAccessException e) {
+            List<BatchItemResult.Status> statuses = new ArrayList<>(chunk.size());
+            for (Vehicle vehicle : chunk) {
+                try {
+                    statuses.addAll(transactionTemplate.execute(tx -> upsertRows(updateSql, insertSql, List.of(vehicle))));
+                } catch (DataAccessException f) {
+                    statuses.add(BatchItemResult.Status.FAILED);
+                }
+            }
+            return statuses;
+        }
+    }
+
+    private List<BatchItemResult.Status> upsertRows(String updateSql, String insertSql, List<Vehicle> vehicles) {
+        int[][] counts = jdbcTemplate.batchUpdate(updateSql, vehicles, vehicles.size(), updateParameterSetter);
+        List<Vehicle> missing = new ArrayList<>();
+        for (int i = 0; i < vehicles.size(); i++) {
+            if (counts[0][i] == 0) {
+                missing.add(vehicles.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, missing, missing.size(), vehicleParameterSetter);
+        }
+        return new ArrayList<>(Collections.nCopies(vehicles.size(), BatchItemResult.Status.UPSERTED));
+    }
+
+    private static BatchItemResult.Status toStatus(int count, boolean upsert) {
+        if (count == Statement.EXECUTE_FAILED) {
+            return BatchItemResult.Status.FAILED;
+        }
+        if (count == 0) {
+            return BatchItemResult.Status.DUPLICATE;
+        }
+        return upsert ? BatchItemResult.Status.UPSERTED : BatchItemResult.Status.CREATED;
+    }
+
+    /**
+     * Returns null when there is no single-statement upsert (other dialects, and the partitioned PostgreSQL
+     * layout); those chunks go through {@link #upsertChunk}.
+     */
+    private String batchSql(boolean upsert) {
+        String insert = insertSql();
+        switch (dialect()) {
+            case POSTGRESQL:
+                if (upsert) {
+                    return isPartitioned() ? null : insert + " ON CONFLICT ((UPPER(vin))) DO UPDATE SET " + UPSERT_SET;
+                }
+                // With partitions a vin stored under another model year fails on vehicle_vin and is retried as a row
+                return insert + " ON CONFLICT DO NOTHING";
+            case H2:
+                return upsert
+                        ? "MERGE INTO vehicle (" + INSERT_COLUMNS + ") KEY (vin) " + insertValues()
+                        : insert;
+            default:
+                return upsert ? null : insert;
+        }
+    }
+
+    private String updateSql() {
+        return "UPDATE vehicle SET manufacturer_name = ?, description = ?, horse_power = ?, model_name = ?, " +
+               "model_year = ?, purchase_price = ?, fuel_type = ?, version = " + nextVersion() + ", " +
+               "updated_at = CURRENT_TIMESTAMP WHERE " + vinEquals();
+    }
+
+    private String insertSql() {
+        return "INSERT INTO vehicle (" + INSERT_COLUMNS + ") " + insertValues();
+    }
+
+    private String insertValues() {
+        return "VALUES (?, ?, ?, ?, ?, ?, ?, ?, " + nextVersion() + ", CURRENT_TIMESTAMP)";
+    }
+
+    /**
+     * Next value of vehicle_version_seq, which numbers every vehicle write.
+     */
+    private String nextVersion() {
+        return dialect() == Dialect.POSTGRESQL ? "nextval('vehicle_version_seq')" : "NEXT VALUE FOR vehicle_version_seq";
+    }
+
+    private <T> List<T> recordRows(String method, List<T> vehicles) {
+        meterRegistry.summary("vehicle.dao.rows", "method", method).record(vehicles.size());
+        return vehicles;
+    }
+
+    /**
+     * Case-insensitive vin match for an upper-cased parameter. PostgreSQL resolves it through the
+     * vin_unique_case_insensitive expression index; on H2 the vin column is VARCHAR_IGNORECASE, so the
+     * plain primary key comparison already ignores case. With model_year partitions the vin's year is read from
+     * vehicle_vin first, and as a run-time parameter it prunes the lookup to that year's partition.
+     */
+    private String vinEquals() {
+        if (dialect() == Dialect.H2) {
+            return "vin = ?";
+        }
+        return isPartitioned()
+                ? "(UPPER(vin), model_year) = (SELECT vin_key, model_year FROM vehicle_vin WHERE vin_key = ?)"
+                : "UPPER(vin) = ?";
+    }
+
+    /**
+     * {@link #vinEquals} for an array of upper-cased vins; both databases resolve it through the same index.
+     */
+    private String vinIn() {
+        if (dialect() == Dialect.H2) {
+            return "vin = ANY(?)";
+        }
+        return isPartitioned()
+                ? "(UPPER(vin), model_year) IN (SELECT vin_key, model_year FROM vehicle_vin WHERE vin_key = ANY(?))"
+                : "UPPER(vin) = ANY(?)";
+    }
+
+    /**
+     * Whether vehicle has the model_year partitions and vehicle_vin directory of database_config.txt. No unique
+     * index covers vin alone there, so upserts cannot use ON CONFLICT on it.
+     */
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = dialect() == Dialect.POSTGRESQL && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('vehicle_vin') IS NOT NULL", Boolean.class));
+        }
+        return partitioned;
+    }
+
+    Dialect dialect() {
+        if (dialect == null) {
+            dialect = jdbcTemplate.execute((ConnectionCallback<Dialect>) con ->
+                    Dialect.fromProductName(con.getMetaData().getDatabaseProductName()));
+        }
+        return dialect;
     }
 
 }
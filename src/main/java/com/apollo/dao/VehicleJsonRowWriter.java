@@ -0,0 +1,59 @@
+package com.apollo.dao;
+
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.VehicleField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Writes each row of a {@code compactColumns} query straight to a JsonGenerator as a Vehicle JSON object,
+ * without building a Vehicle or a list. Columns are the selected fields in {@link VehicleField} order.
+ */
+class VehicleJsonRowWriter implements RowCallbackHandler {
+
+    private final JsonGenerator generator;
+    private final VehicleField[] fields;
+    private int rows;
+
+    VehicleJsonRowWriter(JsonGenerator generator) {
+        this(generator, VehicleField.ALL);
+    }
+
+    VehicleJsonRowWriter(JsonGenerator generator, Set<VehicleField> fields) {
+        this.generator = generator;
+        this.fields = VehicleDAO.inFieldOrder(fields);
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        try {
+            generator.writeStartObject();
+            for (int i = 0; i < fields.length; i++) {
+                int column = i + 1;
+                generator.writeFieldName(fields[i].getSerializedProperty());
+                switch (fields[i]) {
+                    case HORSE_POWER, MODEL_YEAR -> generator.writeNumber(rs.getInt(column));
+                    case PURCHASE_PRICE -> CompactVehicle.writeCents(generator, rs.getLong(column));
+                    default -> generator.writeString(rs.getString(column));
+                }
+            }
+            generator.writeEndObject();
+            // Push the first row out right away so time-to-first-byte does not wait for a full buffer
+            if (rows++ == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,87 @@
+package com.apollo.dao;
+
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleStatsGroup;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GET /vehicle/stats results, kept in memory per set of dimensions and reused until the table version moves on.
+ * A dashboard polling an unchanged table costs one table version read; after a change, the first request per
+ * dimension set runs {@link VehicleDAO#getStats} once and concurrent requests for it wait for that result.
+ */
+@Component
+public class VehicleStats {
+
+    /**
+     * Fields GET /vehicle/stats can group by.
+     */
+    public static final Set<VehicleField> DIMENSIONS = Collections.unmodifiableSet(EnumSet.of(
+            VehicleField.MANUFACTURER_NAME, VehicleField.MODEL_NAME, VehicleField.MODEL_YEAR, VehicleField.FUEL_TYPE));
+
+    private final VehicleDAO vehicleDAO;
+    private final Map<Set<VehicleField>, Slot> slots = new ConcurrentHashMap<>();
+
+    public VehicleStats(VehicleDAO vehicleDAO) {
+        this.vehicleDAO = vehicleDAO;
+    }
+
+    /**
+     * Parses a {@code groupBy} value: comma separated property names out of {@link #DIMENSIONS}; empty or null for
+     * totals only.
+     *
+     * @throws IllegalArgumentException for any other name
+     */
+    public static Set<VehicleField> parseGroupBy(String groupBy) {
+        Set<VehicleField> dimensions = EnumSet.noneOf(VehicleField.class);
+        if (groupBy == null) {
+            return dimensions;
+        }
+        for (String name : groupBy.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            VehicleField field = VehicleField.fromProperty(property);
+            if (field == null || !DIMENSIONS.contains(field)) {
+                throw new IllegalArgumentException("Cannot group by '" + property + "'");
+            }
+            dimensions.add(field);
+        }
+        return dimensions;
+    }
+
+    /**
+     * Groups for {@code dimensions} as of {@code tableVersion} (or later), ordered by the dimensions.
+     */
+    public Report report(Set<VehicleField> dimensions, long tableVersion) {
+        Set<VehicleField> key = EnumSet.noneOf(VehicleField.class);
+        key.addAll(dimensions);
+        Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+        synchronized (slot) {
+            if (slot.report == null || slot.report.tableVersion() < tableVersion) {
+                List<VehicleStatsGroup> groups = vehicleDAO.getStats(dimensions);
+                VehicleStatsGroup total = new VehicleStatsGroup(null, null, null, null, 0, BigDecimal.ZERO, 0);
+                for (VehicleStatsGroup group : groups) {
+                    total = total.plus(group);
+                }
+                slot.report = new Report(tableVersion, total, dimensions.isEmpty() ? List.of() : groups);
+            }
+            return slot.report;
+        }
+    }
+
+    public record Report(long tableVersion, VehicleStatsGroup total, List<VehicleStatsGroup> groups) {
+    }
+
+    private static final class Slot {
+        Report report;
+    }
+}
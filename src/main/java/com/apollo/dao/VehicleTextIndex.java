@@ -0,0 +1,471 @@
+package com.apollo.dao;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over vehicle model names and descriptions for GET /vehicle/search/text.
+ * <p>
+ * Words are lower-cased runs of letters and digits. Every word has postings: the ids of the vehicles that contain
+ * it in ascending order, each with a frequency in which a model name occurrence counts {@value #MODEL_NAME_WEIGHT}
+ * times. Words are kept sorted, so a query word also matches the indexed words it is a prefix of. A vehicle must
+ * match every query word; matches are ranked with BM25, prefix-only matches at half weight.
+ * <p>
+ * The index is empty until {@link #startBuild()}. VehicleDAO then loads every vehicle into a new generation while
+ * committed writes go to both generations, and {@link #finishBuild()} swaps it in; vins written during the build
+ * are not overwritten by the (possibly older) rows the build reads. One read-write lock guards both generations:
+ * searches share it, and writes and loads hold it for one vehicle at a time.
+ */
+@Component
+public class VehicleTextIndex implements MeterBinder {
+
+    static final int MODEL_NAME_WEIGHT = 3;
+
+    private static final int MAX_WORD_LENGTH = 64;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    private final int minPrefix;
+    private final int maxExpansions;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Generation current;
+    private volatile Generation building;
+
+    public VehicleTextIndex(@Value("${apollo.search.text.min-prefix:2}") int minPrefix,
+                            @Value("${apollo.search.text.max-expansions:50}") int maxExpansions) {
+        this.minPrefix = minPrefix;
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * The words of {@code text}, lower-cased, in order and with repeats; words longer than
+     * {@value #MAX_WORD_LENGTH} characters are dropped.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_WORD_LENGTH) {
+                    words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    public boolean isBuilding() {
+        return building != null;
+    }
+
+    /**
+     * Starts an empty generation for {@link #load} to fill; false when a build is already running.
+     */
+    public boolean startBuild() {
+        lock.writeLock().lock();
+        try {
+            if (building != null) {
+                return false;
+            }
+            building = new Generation();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a vehicle read by the running build, unless a write has reached its vin since the build started.
+     */
+    public void load(String vin, String modelName, String description, long version) {
+        String key = VehicleCache.key(vin);
+        lock.writeLock().lock();
+        try {
+            Generation generation = building;
+            if (generation != null && !generation.written.contains(key)) {
+                generation.put(key, vin, modelName, description, version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes the loaded generation the one searched.
+     */
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            if (building != null) {
+                building.written = null;
+                current = building;
+                building = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void abortBuild() {
+        lock.writeLock().lock();
+        try {
+            building = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed insert or update. An update older than the indexed version is ignored; a null version
+     * (batch writes do not read theirs back) always applies.
+     */
+    public void put(String vin, String modelName, String description, Long version) {
+        if (current == null && building == null) {
+            return;
+        }
+        String key = VehicleCache.key(vin);
+        lock.writeLock().lock();
+        try {
+            if (current != null) {
+                current.put(key, vin, modelName, description, version);
+            }
+            if (building != null) {
+                building.written.add(key);
+                building.put(key, vin, modelName, description, version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed delete.
+     */
+    public void remove(String vin) {
+        if (current == null && building == null) {
+            return;
+        }
+        String key = VehicleCache.key(vin);
+        lock.writeLock().lock();
+        try {
+            if (current != null) {
+                current.remove(key);
+            }
+            if (building != null) {
+                building.written.add(key);
+                building.remove(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} vehicles containing every one of {@code words} (or a word they are a prefix of), best
+     * first; ties go to the lower vin. Null until the first build has finished.
+     */
+    public List<Hit> search(List<String> words, int limit) {
+        lock.readLock().lock();
+        try {
+            Generation generation = current;
+            return generation != null ? generation.search(words, limit) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDocumentCount() {
+        Generation generation = current;
+        return generation != null ? generation.documents : 0;
+    }
+
+    public int getWordCount() {
+        Generation generation = current;
+        return generation != null ? generation.postings.size() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vehicle.text.index.documents", this, VehicleTextIndex::getDocumentCount)
+                .description("Vehicles in the full-text index")
+                .register(registry);
+        Gauge.builder("vehicle.text.index.words", this, VehicleTextIndex::getWordCount)
+                .description("Distinct words in the full-text index")
+                .register(registry);
+    }
+
+    public record Hit(String vin, float score) {
+    }
+
+    /**
+     * Ascending vehicle ids and their weighted frequencies for one word.
+     */
+    private static final class Postings {
+
+        final String word;
+        int[] ids = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        Postings(String word) {
+            this.word = word;
+        }
+
+        void add(int id, int frequency) {
+            int at;
+            // Inserts get the highest id so far, so almost every add is an append
+            if (size == 0 || ids[size - 1] < id) {
+                at = size;
+            } else {
+                at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    frequencies[at] = frequency;
+                    return;
+                }
+                at = -at - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(frequencies, at, frequencies, at + 1, size - at);
+            ids[at] = id;
+            frequencies[at] = frequency;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                System.arraycopy(frequencies, at + 1, frequencies, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Vehicle ids in ascending order with their scores for one query word.
+     */
+    private record Match(int[] ids, float[] scores, int size) {
+    }
+
+    /**
+     * One complete index. Ids are never reused: a deleted vehicle leaves a null slot until the next build.
+     */
+    private final class Generation {
+
+        final TreeMap<String, Postings> postings = new TreeMap<>();
+        final Map<String, Integer> ids = new HashMap<>();
+        String[] vins = new String[1024];
+        Postings[][] words = new Postings[1024][];
+        int[] lengths = new int[1024];
+        long[] versions = new long[1024];
+        int nextId;
+        int documents;
+        long totalLength;
+        Set<String> written = new HashSet<>();
+
+        void put(String key, String vin, String modelName, String description, Long version) {
+            Integer id = ids.get(key);
+            if (id != null) {
+                if (version != null && versions[id] > version) {
+                    return;
+                }
+                unindex(id);
+            } else {
+                id = nextId++;
+                if (id == vins.length) {
+                    int capacity = vins.length * 2;
+                    vins = Arrays.copyOf(vins, capacity);
+                    words = Arrays.copyOf(words, capacity);
+                    lengths = Arrays.copyOf(lengths, capacity);
+                    versions = Arrays.copyOf(versions, capacity);
+                }
+                ids.put(key, id);
+            }
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String word : tokenize(modelName)) {
+                frequencies.merge(word, MODEL_NAME_WEIGHT, Integer::sum);
+            }
+            for (String word : tokenize(description)) {
+                frequencies.merge(word, 1, Integer::sum);
+            }
+            Postings[] vehicleWords = new Postings[frequencies.size()];
+            int length = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings wordPostings = postings.computeIfAbsent(entry.getKey(), Postings::new);
+                wordPostings.add(id, entry.getValue());
+                vehicleWords[i++] = wordPostings;
+                length += entry.getValue();
+            }
+            vins[id] = vin;
+            words[id] = vehicleWords;
+            lengths[id] = length;
+            versions[id] = version != null ? version : Long.MIN_VALUE;
+            documents++;
+            totalLength += length;
+        }
+
+        void remove(String key) {
+            Integer id = ids.remove(key);
+            if (id != null) {
+                unindex(id);
+            }
+        }
+
+        private void unindex(int id) {
+            for (Postings wordPostings : words[id]) {
+                wordPostings.remove(id);
+                if (wordPostings.size == 0) {
+                    postings.remove(wordPostings.word);
+                }
+            }
+            documents--;
+            totalLength -= lengths[id];
+            vins[id] = null;
+            words[id] = null;
+        }
+
+        List<Hit> search(List<String> queryWords, int limit) {
+            // Intersect the smallest match first, in place in its own arrays
+            Match[] matches = new Match[queryWords.size()];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = match(queryWords.get(i));
+                if (matches[i].size() == 0) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(matches, (a, b) -> Integer.compare(a.size(), b.size()));
+            int[] resultIds = matches[0].ids();
+            float[] scores = matches[0].scores();
+            int size = matches[0].size();
+            for (int m = 1; m < matches.length && size > 0; m++) {
+                Match match = matches[m];
+                int kept = 0;
+                for (int i = 0, j = 0; i < size && j < match.size(); ) {
+                    if (resultIds[i] < match.ids()[j]) {
+                        i++;
+                    } else if (resultIds[i] > match.ids()[j]) {
+                        j++;
+                    } else {
+                        resultIds[kept] = resultIds[i];
+                        scores[kept++] = scores[i++] + match.scores()[j++];
+                    }
+                }
+                size = kept;
+            }
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> {
+                int order = Float.compare(scores[a], scores[b]);
+                return order != 0 ? order : vins[resultIds[b]].compareTo(vins[resultIds[a]]);
+            });
+            for (int i = 0; i < size; i++) {
+                top.add(i);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int i = top.poll();
+                hits.add(new Hit(vins[resultIds[i]], scores[i]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        }
+
+        /**
+         * Vehicles containing {@code word} or, once it is {@code minPrefix} long, a word starting with it (at most
+         * {@code maxExpansions} of those, the most common first). A vehicle with several such words scores its best.
+         */
+        private Match match(String word) {
+            List<Postings> expansions = new ArrayList<>();
+            if (word.length() >= minPrefix) {
+                expansions.addAll(postings.subMap(word, true, word + Character.MAX_VALUE, true).values());
+                if (expansions.size() > maxExpansions) {
+                    expansions.sort((a, b) -> a.word.equals(word) ? -1 : b.word.equals(word) ? 1 : Integer.compare(b.size, a.size));
+                    expansions = expansions.subList(0, maxExpansions);
+                }
+            } else {
+                Postings exact = postings.get(word);
+                if (exact != null) {
+                    expansions.add(exact);
+                }
+            }
+            float averageLength = documents > 0 ? (float) totalLength / documents : 1;
+            if (expansions.size() == 1) {
+                Postings only = expansions.get(0);
+                float[] scores = new float[only.size];
+                for (int i = 0; i < only.size; i++) {
+                    scores[i] = score(only, i, word, averageLength);
+                }
+                return new Match(Arrays.copyOf(only.ids, only.size), scores, only.size);
+            }
+            // Several words: sort (id, score) pairs packed into longs by id and keep the best score per id
+            int total = 0;
+            for (Postings expansion : expansions) {
+                total += expansion.size;
+            }
+            long[] packed = new long[total];
+            int n = 0;
+            for (Postings expansion : expansions) {
+                for (int i = 0; i < expansion.size; i++) {
+                    packed[n++] = (long) expansion.ids[i] << 32 | (Float.floatToRawIntBits(score(expansion, i, word, averageLength)) & 0xFFFFFFFFL);
+                }
+            }
+            Arrays.sort(packed);
+            int[] matchIds = new int[total];
+            float[] scores = new float[total];
+            int size = 0;
+            for (long pair : packed) {
+                int id = (int) (pair >>> 32);
+                float score = Float.intBitsToFloat((int) pair);
+                if (size > 0 && matchIds[size - 1] == id) {
+                    scores[size - 1] = Math.max(scores[size - 1], score);
+                } else {
+                    matchIds[size] = id;
+                    scores[size++] = score;
+                }
+            }
+            return new Match(matchIds, scores, size);
+        }
+
+        private float score(Postings wordPostings, int index, String queryWord, float averageLength) {
+            int id = wordPostings.ids[index];
+            float frequency = wordPostings.frequencies[index];
+            float idf = (float) Math.log(1 + (documents - wordPostings.size + 0.5) / (wordPostings.size + 0.5));
+            float norm = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengths[id] / averageLength));
+            return (wordPostings.word.equals(queryWord) ? 1 : PREFIX_WEIGHT) * idf * norm;
+        }
+    }
+}
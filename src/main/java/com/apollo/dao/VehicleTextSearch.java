@@ -0,0 +1,141 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /vehicle/search/text. With {@code apollo.search.text.mode=auto} it runs on PostgreSQL's GIN-indexed
+ * search_vector column when database_config.txt has added it, and on {@link VehicleTextIndex} otherwise
+ * ({@code index} and {@code database} force one or the other).
+ * <p>
+ * The in-process index is built in the background from the vehicle table on the first search, or at startup with
+ * {@code apollo.search.text.build-on-startup}, and then kept current by VehicleDAO writes. It only sees writes made
+ * through this instance, so with several instances set {@code apollo.search.text.rebuild-interval} (or use the
+ * database mode).
+ */
+@Component
+public class VehicleTextSearch implements DisposableBean {
+
+    /**
+     * Words a query may have; each one is a postings merge.
+     */
+    public static final int MAX_WORDS = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleTextSearch.class);
+
+    private final VehicleDAO vehicleDAO;
+    private final VehicleTextIndex textIndex;
+    private final String mode;
+    private final boolean buildOnStartup;
+    private final Duration rebuildInterval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "vehicle-text-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VehicleTextSearch(VehicleDAO vehicleDAO, VehicleTextIndex textIndex,
+                             @Value("${apollo.search.text.mode:auto}") String mode,
+                             @Value("${apollo.search.text.build-on-startup:false}") boolean buildOnStartup,
+                             @Value("${apollo.search.text.rebuild-interval:0s}") Duration rebuildInterval) {
+        this.vehicleDAO = vehicleDAO;
+        this.textIndex = textIndex;
+        this.mode = mode;
+        this.buildOnStartup = buildOnStartup;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    /**
+     * Splits a query into distinct words as the index does.
+     *
+     * @throws IllegalArgumentException when it has no words or more than {@value #MAX_WORDS}
+     */
+    public static List<String> parseQuery(String query) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(VehicleTextIndex.tokenize(query)));
+        if (words.isEmpty() || words.size() > MAX_WORDS) {
+            throw new IllegalArgumentException("A query needs 1 to " + MAX_WORDS + " words of letters or digits");
+        }
+        return words;
+    }
+
+    /**
+     * The best {@code limit} vehicles whose model name or description contain every word (or a word starting
+     * with it), best first. Null while the in-process index is still being built.
+     */
+    public List<Vehicle> search(List<String> words, int limit) {
+        if (useDatabase()) {
+            return vehicleDAO.searchText(words, limit);
+        }
+        List<VehicleTextIndex.Hit> hits = textIndex.search(words, limit);
+        if (hits == null) {
+            build();
+            return null;
+        }
+        Map<String, Vehicle> found = vehicleDAO.getVehiclesByVins(hits.stream().map(VehicleTextIndex.Hit::vin).toList());
+        List<Vehicle> vehicles = new ArrayList<>(hits.size());
+        for (VehicleTextIndex.Hit hit : hits) {
+            // A vehicle deleted since the search ran is left out
+            Vehicle vehicle = found.get(VehicleCache.key(hit.vin()));
+            if (vehicle != null) {
+                vehicles.add(vehicle);
+            }
+        }
+        return vehicles;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (buildOnStartup && !useDatabase()) {
+            build();
+        }
+    }
+
+    private boolean useDatabase() {
+        return switch (mode) {
+            case "database" -> true;
+            case "index" -> false;
+            default -> vehicleDAO.hasTextSearchColumn();
+        };
+    }
+
+    private void build() {
+        if (!textIndex.startBuild()) {
+            return;
+        }
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                vehicleDAO.loadTextIndex();
+                textIndex.finishBuild();
+                log.info("Vehicle text index built: {} vehicles, {} words in {} ms", textIndex.getDocumentCount(),
+                        textIndex.getWordCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                textIndex.abortBuild();
+                log.warn("Vehicle text index build failed: {}", e.getMessage());
+            }
+            if (!rebuildInterval.isZero()) {
+                executor.schedule(this::build, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,345 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Updates accepted by PUT /vehicle/{vin} in write-behind mode that are not in the database yet, newest per vin.
+ * Every update is appended to a local log before {@link #append} returns, so an acknowledged update survives a
+ * crash: the log is replayed into the buffer on startup. Concurrent appends share one fsync.
+ * <p>
+ * The log is split into segments, one per flush. {@link #drain} hands the pending updates to VehicleDAO and starts a
+ * new segment; once they are committed {@link Batch#commit} deletes the segments they came from. A failed flush
+ * {@link Batch#restore}s them, keeping updates made since. Drained updates stay visible to {@link #peek} until then.
+ */
+public class VehicleWriteBuffer implements MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleWriteBuffer.class);
+
+    private static final String SEGMENT_PREFIX = "vehicle-writes-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Record: payload length, CRC32 of the payload, then the vehicle as JSON
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final int maxPending;
+    private final ObjectMapper objectMapper;
+    private final Object syncLock = new Object();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    private volatile Map<String, Vehicle> pending = new ConcurrentHashMap<>();
+    private volatile Map<String, Vehicle> inFlight = Map.of();
+    private FileChannel segment;
+    private long generation;
+    private long written;
+    private volatile long synced;
+    private final int recovered;
+
+    /**
+     * Opens the log in {@code directory}, replaying the segments a previous run left behind into the buffer.
+     *
+     * @param fsync      force every acknowledged append to disk; without it an update survives a process crash
+     *                   but not a power loss
+     * @param maxPending distinct vins the buffer holds before {@link #append} refuses updates for new ones
+     */
+    public VehicleWriteBuffer(Path directory, boolean fsync, int maxPending, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.maxPending = maxPending;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        List<Path> segments = segments(Long.MAX_VALUE);
+        for (Path path : segments) {
+            replay(path);
+            generation = Math.max(generation, generationOf(path));
+        }
+        recovered = pending.size();
+        if (recovered == 0) {
+            for (Path path : segments) {
+                Files.delete(path);
+            }
+        } else {
+            log.info("Replayed {} pending vehicle updates from {}", recovered, directory);
+        }
+        segment = open(++generation);
+    }
+
+    /**
+     * Logs the vehicle and makes it the pending update for its vin, replacing any earlier one. Returns once the
+     * record is on disk.
+     *
+     * @throws RejectedExecutionException when {@code maxPending} other vins are waiting to be flushed
+     */
+    public void append(Vehicle vehicle) {
+        String key = VehicleCache.key(vehicle.getVin());
+        ByteBuffer record = encode(vehicle);
+        long end;
+        synchronized (this) {
+            if (pending.size() >= maxPending && !pending.containsKey(key)) {
+                throw new RejectedExecutionException("The write-behind buffer holds " + maxPending + " vehicles");
+            }
+            try {
+                while (record.hasRemaining()) {
+                    segment.write(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Appending to the write-behind log failed", e);
+            }
+            end = written += record.limit();
+            if (pending.put(key, vehicle) != null) {
+                collapsed.incrementAndGet();
+            }
+            appended.incrementAndGet();
+        }
+        if (fsync) {
+            sync(end);
+        }
+    }
+
+    /**
+     * One force covers every append written before it started, so threads arriving while it runs wait for the
+     * next one instead of each forcing the file.
+     */
+    private void sync(long end) {
+        if (synced >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            synchronized (this) {
+                channel = segment;
+                target = written;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Syncing the write-behind log failed", e);
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * The pending update for the vin, whether or not a flush is writing it, or null.
+     */
+    public Vehicle peek(String vin) {
+        String key = VehicleCache.key(vin);
+        // A drain publishes inFlight before it replaces pending, so an update is always in one of them
+        Vehicle vehicle = pending.get(key);
+        return vehicle != null ? vehicle : inFlight.get(key);
+    }
+
+    public boolean isPending(String vin) {
+        return peek(vin) != null;
+    }
+
+    /**
+     * Takes every pending update and starts a new log segment. Returns null when nothing is pending. The caller
+     * must {@link Batch#commit} or {@link Batch#restore} the batch before draining again.
+     */
+    public Batch drain() {
+        synchronized (syncLock) {
+            Map<String, Vehicle> drained;
+            FileChannel previous;
+            long drainedGeneration;
+            long target;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return null;
+                }
+                drained = pending;
+                inFlight = drained;
+                pending = new ConcurrentHashMap<>();
+                previous = segment;
+                drainedGeneration = generation;
+                try {
+                    segment = open(++generation);
+                } catch (IOException e) {
+                    pending = drained;
+                    inFlight = Map.of();
+                    generation--;
+                    throw new UncheckedIOException("Starting a write-behind log segment failed", e);
+                }
+                target = written;
+            }
+            try {
+                if (fsync) {
+                    previous.force(false);
+                    synced = target;
+                }
+                previous.close();
+            } catch (IOException e) {
+                log.warn("Closing write-behind log segment {} failed: {}", drainedGeneration, e.getMessage());
+            }
+            return new Batch(drained, drainedGeneration);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Updates replayed from the log at startup.
+     */
+    public int getRecovered() {
+        return recovered;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vehicle.writebehind.pending", this, VehicleWriteBuffer::size)
+                .description("Vehicles with an update not yet flushed to the database")
+                .register(registry);
+        registry.more().counter("vehicle.writebehind.appended", List.of(), appended);
+        registry.more().counter("vehicle.writebehind.collapsed", List.of(), collapsed);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.close();
+    }
+
+    private ByteBuffer encode(Vehicle vehicle) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(vehicle);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return record;
+    }
+
+    /**
+     * Reads a segment's records into the buffer, stopping at a torn or corrupt record: the write being made when
+     * the process died, which was never acknowledged.
+     */
+    private void replay(Path path) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (bytes.remaining() >= HEADER_BYTES) {
+            int length = bytes.getInt();
+            int checksum = bytes.getInt();
+            if (length < 0 || length > bytes.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            bytes.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            Vehicle vehicle = objectMapper.readValue(payload, Vehicle.class);
+            pending.put(VehicleCache.key(vehicle.getVin()), vehicle);
+        }
+    }
+
+    private FileChannel open(long segmentGeneration) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segmentGeneration, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Segment files up to and including {@code maxGeneration}, oldest first.
+     */
+    private List<Path> segments(long maxGeneration) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && generationOf(path) <= maxGeneration;
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Updates taken by one {@link #drain}, at most one per vin.
+     */
+    public class Batch {
+
+        private final Map<String, Vehicle> vehicles;
+        private final long generation;
+
+        private Batch(Map<String, Vehicle> vehicles, long generation) {
+            this.vehicles = vehicles;
+            this.generation = generation;
+        }
+
+        public Collection<Vehicle> getVehicles() {
+            return vehicles.values();
+        }
+
+        /**
+         * The updates are in the database: deletes the log segments they were read from.
+         */
+        public void commit() {
+            inFlight = Map.of();
+            try {
+                for (Path path : segments(generation)) {
+                    Files.delete(path);
+                }
+            } catch (IOException e) {
+                // Left behind, they would be replayed over any later write to the same vins on the next startup
+                log.error("Deleting flushed write-behind log segments failed: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * The flush failed: puts the updates back unless a newer one for the same vin arrived meanwhile. Their
+         * segments stay on disk until a later flush commits.
+         */
+        public void restore() {
+            synchronized (VehicleWriteBuffer.this) {
+                for (Map.Entry<String, Vehicle> entry : vehicles.entrySet()) {
+                    pending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                inFlight = Map.of();
+            }
+        }
+    }
+
+    /**
+     * For tests: the segment files currently on disk.
+     */
+    List<Path> segmentFiles() throws IOException {
+        return segments(Long.MAX_VALUE);
+    }
+}
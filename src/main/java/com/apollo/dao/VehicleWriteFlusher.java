@@ -0,0 +1,56 @@
+package com.apollo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link VehicleDAO#flushWriteBuffer} every {@code apollo.write-behind.flush-interval} once the application is
+ * ready, which first writes the updates replayed from the log, and a last time on shutdown. A flush that fails is
+ * retried on the next tick with everything accepted since.
+ */
+public class VehicleWriteFlusher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleWriteFlusher.class);
+
+    private final VehicleDAO vehicleDAO;
+    private final Duration interval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "vehicle-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VehicleWriteFlusher(VehicleDAO vehicleDAO, Duration interval) {
+        this.vehicleDAO = vehicleDAO;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flush, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        try {
+            vehicleDAO.flushWriteBuffer();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush failed, retrying in {} ms: {}", interval.toMillis(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        // Whatever this misses stays in the log and is written after the next start
+        flush();
+    }
+}
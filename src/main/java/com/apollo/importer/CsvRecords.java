@@ -0,0 +1,77 @@
+package com.apollo.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV: comma separated, fields optionally quoted with {@code "}, quotes escaped by doubling.
+ * A quoted field may span lines; {@link #isComplete} tells the reader when to stop joining lines. Only a quote
+ * that starts a field opens a quoted field: elsewhere, as in {@code 20" wheels}, a quote is an ordinary character.
+ */
+final class CsvRecords {
+
+    private CsvRecords() {
+    }
+
+    /**
+     * True when every quoted field opened in the record has been closed.
+     */
+    static boolean isComplete(CharSequence record) {
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else {
+                fieldStart = c == ',';
+            }
+        }
+        return !quoted;
+    }
+
+    static List<String> parse(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else {
+                if (c != '\r') {
+                    field.append(c);
+                }
+                fieldStart = false;
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,61 @@
+package com.apollo.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Line reader that never holds more of a line than its caller allows: past the limit the rest of the line is
+ * read and dropped, so a file without line breaks cannot fill memory the way {@link java.io.BufferedReader#readLine}
+ * would. Lines end at {@code \n} or {@code \r\n}.
+ */
+final class LineReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int end;
+
+    LineReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Appends the next line, without its line break, to {@code record} until {@code record} reaches {@code limit}
+     * characters, and drops the rest of the line. Returns false at the end of the input.
+     */
+    boolean appendLine(StringBuilder record, int limit) throws IOException {
+        if (position == end && !fill()) {
+            return false;
+        }
+        int lineStart = record.length();
+        boolean dropped = false;
+        while (true) {
+            int start = position;
+            while (position < end && buffer[position] != '\n') {
+                position++;
+            }
+            int length = Math.min(position - start, Math.max(0, limit - record.length()));
+            record.append(buffer, start, length);
+            dropped |= length < position - start;
+            if (position < end) {
+                position++;
+                break;
+            }
+            if (!fill()) {
+                break;
+            }
+        }
+        int last = record.length() - 1;
+        if (!dropped && last >= lineStart && record.charAt(last) == '\r') {
+            record.setLength(last);
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer);
+        position = 0;
+        end = Math.max(read, 0);
+        return read > 0;
+    }
+}
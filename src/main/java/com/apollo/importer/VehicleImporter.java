@@ -0,0 +1,355 @@
+package com.apollo.importer;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.ImportReport;
+import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Streams a CSV or NDJSON file into the vehicle table. One thread reads the file and cuts it into chunks of
+ * {@code apollo.import.chunk-size} records, a pool of {@code apollo.import.parallelism} threads parses and
+ * validates chunks, and the calling thread writes them in file order through {@link VehicleDAO#importVehicles}.
+ * Chunks in flight are capped at twice the pool size, so a slow database stalls the reader instead of
+ * filling memory.
+ */
+@Component
+public class VehicleImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleImporter.class);
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private final VehicleDAO vehicleDAO;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxRejects;
+    private final Duration progressInterval;
+    private final int maxRecordBytes;
+
+    public VehicleImporter(VehicleDAO vehicleDAO, ObjectMapper objectMapper, Validator validator,
+                           @Value("${apollo.import.chunk-size:1000}") int chunkSize,
+                           @Value("${apollo.import.parallelism:0}") int parallelism,
+                           @Value("${apollo.import.max-rejects:1000}") int maxRejects,
+                           @Value("${apollo.import.progress-interval:5s}") Duration progressInterval,
+                           @Value("${apollo.import.max-record-bytes:65536}") int maxRecordBytes) {
+        this.vehicleDAO = vehicleDAO;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxRejects = maxRejects;
+        this.progressInterval = progressInterval;
+        this.maxRecordBytes = maxRecordBytes;
+    }
+
+    /**
+     * Imports every record and returns the report. {@code progress} receives the running report every
+     * {@code apollo.import.progress-interval}. Throws {@link IllegalArgumentException} when a CSV header has
+     * no vin column.
+     */
+    public ImportReport importVehicles(InputStream in, Format format, boolean upsert, Consumer<ImportReport> progress) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(maxRejects);
+        LineReader reader = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RecordParser parser = format == Format.CSV ? csvParser(reader) : this::parseJson;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "vehicle-import-parse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<ParsedChunk>> pending = new ArrayBlockingQueue<>(parallelism * 2);
+        Thread readerThread = new Thread(() -> readChunks(reader, format, parser, parsers, pending), "vehicle-import-read");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        long nextProgress = System.nanoTime() + progressInterval.toNanos();
+        try {
+            while (true) {
+                ParsedChunk chunk = pending.take().get();
+                if (chunk == ParsedChunk.END) {
+                    break;
+                }
+                writeChunk(chunk, upsert, report);
+                if (System.nanoTime() >= nextProgress) {
+                    report.setElapsedMillis(Duration.ofNanos(System.nanoTime() - start).toMillis());
+                    log.info("Vehicle import progress: {}", report);
+                    progress.accept(report);
+                    nextProgress = System.nanoTime() + progressInterval.toNanos();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Vehicle import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            readerThread.interrupt();
+            parsers.shutdownNow();
+        }
+        report.setElapsedMillis(Duration.ofNanos(System.nanoTime() - start).toMillis());
+        log.info("Vehicle import finished: {}", report);
+        return report;
+    }
+
+    private void writeChunk(ParsedChunk chunk, boolean upsert, ImportReport report) {
+        List<BatchItemResult.Status> statuses = chunk.vehicles.isEmpty()
+                ? List.of()
+                : vehicleDAO.importVehicles(chunk.vehicles, upsert);
+        // Report rows in file order: parse rejects and write outcomes interleave by line number
+        int written = 0;
+        for (BatchItemResult reject : chunk.rejects) {
+            while (written < statuses.size() && chunk.lines[written] < reject.getIndex()) {
+                record(chunk, written, statuses.get(written), report);
+                written++;
+            }
+            report.reject(reject);
+        }
+        for (; written < statuses.size(); written++) {
+            record(chunk, written, statuses.get(written), report);
+        }
+    }
+
+    private static void record(ParsedChunk chunk, int i, BatchItemResult.Status status, ImportReport report) {
+        if (status == BatchItemResult.Status.CREATED || status == BatchItemResult.Status.UPSERTED) {
+            report.count(status);
+        } else {
+            report.reject(new BatchItemResult(chunk.lines[i], chunk.vehicles.get(i).getVin(), status, null));
+        }
+    }
+
+    /**
+     * Runs on the reader thread. Always ends the queue with {@link ParsedChunk#END} or a failed future so the
+     * writer never waits forever.
+     */
+    private void readChunks(LineReader reader, Format format, RecordParser parser, ExecutorService parsers,
+                            BlockingQueue<Future<ParsedChunk>> pending) {
+        try {
+            List<String> records = new ArrayList<>(chunkSize);
+            int[] lines = new int[chunkSize];
+            int lineNumber = format == Format.CSV ? 1 : 0;
+            StringBuilder record = new StringBuilder();
+            // One character over the limit is read so an overlong record can be told apart
+            int limit = maxRecordBytes + 1;
+            while (reader.appendLine(record, limit)) {
+                lineNumber++;
+                int recordLine = lineNumber;
+                // A quoted CSV field may contain line breaks; keep reading until the quotes balance
+                while (format == Format.CSV && record.length() < limit && !CsvRecords.isComplete(record)) {
+                    int length = record.length();
+                    if (!reader.appendLine(record.append('\n'), limit)) {
+                        record.setLength(length);
+                        break;
+                    }
+                    lineNumber++;
+                }
+                if (record.length() == limit) {
+                    // Usually an unbalanced quote: rejected rather than joined with the rest of the file
+                    lines[records.size()] = recordLine;
+                    records.add(null);
+                } else if (record.toString().isBlank()) {
+                    record.setLength(0);
+                    continue;
+                } else {
+                    lines[records.size()] = recordLine;
+                    records.add(record.toString());
+                }
+                record.setLength(0);
+                if (records.size() == chunkSize) {
+                    submit(records, lines, parser, parsers, pending);
+                    records = new ArrayList<>(chunkSize);
+                    lines = new int[chunkSize];
+                }
+            }
+            if (!records.isEmpty()) {
+                submit(records, lines, parser, parsers, pending);
+            }
+            pending.put(CompletableFuture.completedFuture(ParsedChunk.END));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            try {
+                pending.put(CompletableFuture.failedFuture(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void submit(List<String> records, int[] lines, RecordParser parser, ExecutorService parsers,
+                               BlockingQueue<Future<ParsedChunk>> pending) throws InterruptedException {
+        pending.put(parsers.submit(() -> parseChunk(records, lines, parser)));
+    }
+
+    /**
+     * A null record is one longer than {@code apollo.import.max-record-bytes}, of which only the line is known.
+     */
+    private static ParsedChunk parseChunk(List<String> records, int[] lines, RecordParser parser) {
+        ParsedChunk chunk = new ParsedChunk(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Map<String, String> errors = new HashMap<>();
+            if (records.get(i) == null) {
+                errors.put("record", "The record is longer than apollo.import.max-record-bytes; check it for an unbalanced quote.");
+                chunk.rejects.add(new BatchItemResult(lines[i], null, BatchItemResult.Status.INVALID, errors));
+                continue;
+            }
+            Vehicle vehicle = parser.parse(records.get(i), errors);
+            if (errors.isEmpty()) {
+                chunk.lines[chunk.vehicles.size()] = lines[i];
+                chunk.vehicles.add(vehicle);
+            } else {
+                chunk.rejects.add(new BatchItemResult(lines[i], vehicle != null ? vehicle.getVin() : null,
+                        BatchItemResult.Status.INVALID, errors));
+            }
+        }
+        return chunk;
+    }
+
+    private Vehicle parseJson(String record, Map<String, String> errors) {
+        Vehicle vehicle;
+        try {
+            vehicle = objectMapper.readValue(record, Vehicle.class);
+        } catch (JsonProcessingException e) {
+            errors.put("body", "The line could not be parsed as a Vehicle JSON representation.");
+            return null;
+        }
+        validate(vehicle, errors);
+        return vehicle;
+    }
+
+    /**
+     * Maps header names (property names such as {@code horsePower} or column names such as {@code horse_power})
+     * to {@link VehicleField}s. Unknown columns are ignored.
+     */
+    private RecordParser csvParser(LineReader reader) throws IOException {
+        StringBuilder headerLine = new StringBuilder();
+        if (!reader.appendLine(headerLine, maxRecordBytes)) {
+            return (record, errors) -> null;
+        }
+        String header = headerLine.toString();
+        List<String> names = CsvRecords.parse(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        VehicleField[] fields = new VehicleField[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            fields[i] = fieldForHeader(names.get(i).trim());
+        }
+        if (!List.of(fields).contains(VehicleField.VIN)) {
+            throw new IllegalArgumentException("The CSV header has no vin column.");
+        }
+        return (record, errors) -> {
+            List<String> values = CsvRecords.parse(record);
+            Vehicle vehicle = new Vehicle();
+            for (int i = 0; i < fields.length && i < values.size(); i++) {
+                if (fields[i] != null) {
+                    setField(vehicle, fields[i], values.get(i), errors);
+                }
+            }
+            validate(vehicle, errors);
+            return vehicle;
+        };
+    }
+
+    private static VehicleField fieldForHeader(String name) {
+        for (VehicleField field : VehicleField.values()) {
+            if (field.getProperty().equalsIgnoreCase(name) || field.getColumn().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static void setField(Vehicle vehicle, VehicleField field, String value, Map<String, String> errors) {
+        try {
+            switch (field) {
+                case VIN -> vehicle.setVin(value);
+                case MANUFACTURER_NAME -> vehicle.setManufacturerName(value);
+                case DESCRIPTION -> vehicle.setDescription(value);
+                case HORSE_POWER -> vehicle.setHorsePower(value.isBlank() ? null : Integer.valueOf(value.trim()));
+                case MODEL_NAME -> vehicle.setModelName(value);
+                case MODEL_YEAR -> vehicle.setModelYear(value.isBlank() ? null : Integer.valueOf(value.trim()));
+                case PURCHASE_PRICE -> vehicle.setPurchasePrice(value.isBlank() ? null : new BigDecimal(value.trim()));
+                case FUEL_TYPE -> vehicle.setFuelType(value);
+            }
+        } catch (NumberFormatException e) {
+            errors.put(field.getProperty(), "Must be a number");
+        }
+    }
+
+    private void validate(Vehicle vehicle, Map<String, String> errors) {
+        Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+        for (ConstraintViolation<Vehicle> violation : violations) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordParser {
+        /**
+         * Returns the parsed vehicle (possibly partial) and adds a message to {@code errors} for every problem.
+         */
+        Vehicle parse(String record, Map<String, String> errors);
+    }
+
+    private static final class ParsedChunk {
+
+        static final ParsedChunk END = new ParsedChunk(0);
+
+        final List<Vehicle> vehicles;
+        final int[] lines;
+        final List<BatchItemResult> rejects = new ArrayList<>();
+
+        ParsedChunk(int size) {
+            this.vehicles = new ArrayList<>(size);
+            this.lines = new int[size];
+        }
+    }
+}
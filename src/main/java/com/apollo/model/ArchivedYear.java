@@ -0,0 +1,10 @@
+package com.apollo.model;
+
+import java.time.Instant;
+
+/**
+ * One archived model year on GET /vehicle/archive: how many vehicles it holds, in how many compressed chunks, and
+ * their size as NDJSON before and after compression.
+ */
+public record ArchivedYear(int modelYear, long vehicles, int chunks, long rawBytes, long compressedBytes, Instant archivedAt) {
+}
@@ -0,0 +1,97 @@
+package com.apollo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Read-only vehicle for bulk reads: primitive ints and the price in cents, so mapping a row allocates
+ * only the record and its strings. Serializes to the same JSON as {@link Vehicle}. A vehicle read with a field
+ * projection leaves the unselected fields null or zero; write it with {@link #writeJson} and the same fields.
+ */
+@JsonSerialize(using = CompactVehicle.Serializer.class)
+public record CompactVehicle(String vin,
+                             String manufacturerName,
+                             String description,
+                             int horsePower,
+                             String modelName,
+                             int modelYear,
+                             long purchasePriceCents,
+                             String fuelType) {
+
+    private static final VehicleField[] FIELDS = VehicleField.values();
+
+    public static CompactVehicle of(Vehicle vehicle) {
+        return new CompactVehicle(vehicle.getVin(), vehicle.getManufacturerName(), vehicle.getDescription(),
+                vehicle.getHorsePower(), vehicle.getModelName(), vehicle.getModelYear(),
+                vehicle.getPurchasePrice().movePointRight(2).longValueExact(), vehicle.getFuelType());
+    }
+
+    public BigDecimal purchasePrice() {
+        return BigDecimal.valueOf(purchasePriceCents, 2);
+    }
+
+    /**
+     * Writes cents as a decimal with two fraction digits (12345 becomes 123.45), matching how
+     * Jackson renders the NUMERIC(10,2) BigDecimal on {@link Vehicle}.
+     */
+    public static void writeCents(JsonGenerator generator, long cents) throws IOException {
+        char[] buffer = new char[21];
+        int pos = buffer.length;
+        long remaining = Math.abs(cents);
+        buffer[--pos] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--pos] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--pos] = '.';
+        do {
+            buffer[--pos] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (cents < 0) {
+            buffer[--pos] = '-';
+        }
+        generator.writeNumber(buffer, pos, buffer.length - pos);
+    }
+
+    /**
+     * Writes the vehicle as a JSON object holding only {@code fields}, in {@link VehicleField} order.
+     */
+    public void writeJson(JsonGenerator generator, Set<VehicleField> fields) throws IOException {
+        generator.writeStartObject(this);
+        for (VehicleField field : FIELDS) {
+            if (!fields.contains(field)) {
+                continue;
+            }
+            generator.writeFieldName(field.getSerializedProperty());
+            switch (field) {
+                case VIN -> generator.writeString(vin);
+                case MANUFACTURER_NAME -> generator.writeString(manufacturerName);
+                case DESCRIPTION -> generator.writeString(description);
+                case HORSE_POWER -> generator.writeNumber(horsePower);
+                case MODEL_NAME -> generator.writeString(modelName);
+                case MODEL_YEAR -> generator.writeNumber(modelYear);
+                case PURCHASE_PRICE -> writeCents(generator, purchasePriceCents);
+                case FUEL_TYPE -> generator.writeString(fuelType);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    static class Serializer extends StdSerializer<CompactVehicle> {
+
+        Serializer() {
+            super(CompactVehicle.class);
+        }
+
+        @Override
+        public void serialize(CompactVehicle vehicle, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            vehicle.writeJson(generator, VehicleField.ALL);
+        }
+    }
+}
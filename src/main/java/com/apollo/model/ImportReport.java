@@ -0,0 +1,105 @@
+package com.apollo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rejected rows are kept up to a limit so the report stays small for any file size;
+ * their {@code index} is the line number in the file.
+ */
+public class ImportReport {
+
+    private long rows;
+    private long created;
+    private long upserted;
+    private long duplicate;
+    private long invalid;
+    private long failed;
+    private long elapsedMillis;
+    private final List<BatchItemResult> rejects = new ArrayList<>();
+    private boolean rejectsTruncated;
+
+    private final int maxRejects;
+
+    public ImportReport(int maxRejects) {
+        this.maxRejects = maxRejects;
+    }
+
+    public void count(BatchItemResult.Status status) {
+        rows++;
+        switch (status) {
+            case CREATED -> created++;
+            case UPSERTED -> upserted++;
+            case DUPLICATE -> duplicate++;
+            case INVALID -> invalid++;
+            case FAILED -> failed++;
+        }
+    }
+
+    public void reject(BatchItemResult reject) {
+        count(reject.getStatus());
+        if (rejects.size() < maxRejects) {
+            rejects.add(reject);
+        } else {
+            rejectsTruncated = true;
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpserted() {
+        return upserted;
+    }
+
+    public long getDuplicate() {
+        return duplicate;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000 / elapsedMillis : rows;
+    }
+
+    public List<BatchItemResult> getRejects() {
+        return rejects;
+    }
+
+    public boolean isRejectsTruncated() {
+        return rejectsTruncated;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "rows=" + rows +
+                ", created=" + created +
+                ", upserted=" + upserted +
+                ", duplicate=" + duplicate +
+                ", invalid=" + invalid +
+                ", failed=" + failed +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                '}';
+    }
+}
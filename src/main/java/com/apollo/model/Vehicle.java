@@ -1,20 +1,28 @@
 package com.apollo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
-@Table(name = "vehicle")
+@Table(name = "vehicle", indexes = {
+        @Index(name = "vehicle_manufacturer_year", columnList = "manufacturer_name, model_year"),
+        @Index(name = "vehicle_fuel_type", columnList = "fuel_type"),
+        // H2 has no partitions: serves year-filtered searches and VehicleArchive's per-year reads and deletes
+        @Index(name = "vehicle_model_year", columnList = "model_year")
+})
 public class Vehicle {
 
     @Id
     @NotBlank(message = "VIN is required")
     @Size(max = 17, message = "VIN must be at most 17 characters")
-    @Column(name = "vin", length = 17, nullable = false, unique = true)
+    // VARCHAR_IGNORECASE only applies to the embedded H2 schema; PostgreSQL uses database_config.txt
+    @Column(name = "vin", length = 17, nullable = false, unique = true, columnDefinition = "VARCHAR_IGNORECASE(17)")
     private String vin;
 
     @NotBlank(message = "Manufacturer name is required")
@@ -49,6 +57,15 @@ public class Vehicle {
     @Column(name = "fuel_type", length = 50, nullable = false)
     private String fuelType;
 
+    // Set by VehicleDAO on every write and sent as ETag / Last-Modified headers, never in the body
+    @JsonIgnore
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     public Vehicle(){
 
     }
@@ -127,6 +144,22 @@ public class Vehicle {
         this.fuelType = fuelType;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     @Override
     public String toString() {
         return "Vehicle{" +
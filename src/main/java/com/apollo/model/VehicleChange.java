@@ -0,0 +1,20 @@
+package com.apollo.model;
+
+import java.time.Instant;
+
+/**
+ * One committed vehicle write as published on GET /vehicle/changes. {@code seq} numbers the changes of this
+ * instance without gaps; {@code version} is the vehicle version the write produced when the DAO knows it
+ * (single-vehicle writes), otherwise null.
+ */
+public record VehicleChange(long seq, Type type, String vin, Long version, Instant at) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        UPSERTED,
+        DELETED,
+        // Moved to the archive with its model year (VehicleArchive); still readable at /vehicle/archive/{vin}
+        ARCHIVED
+    }
+}
@@ -0,0 +1,93 @@
+package com.apollo.model;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Vehicle JSON property names and the vehicle table columns they map to. Anything that puts a client-supplied
+ * field name into SQL must go through this enum.
+ */
+public enum VehicleField {
+    VIN("vin", "vin"),
+    MANUFACTURER_NAME("manufacturerName", "manufacturer_name"),
+    DESCRIPTION("description", "description"),
+    HORSE_POWER("horsePower", "horse_power"),
+    MODEL_NAME("modelName", "model_name"),
+    MODEL_YEAR("modelYear", "model_year"),
+    PURCHASE_PRICE("purchasePrice", "purchase_price"),
+    FUEL_TYPE("fuelType", "fuel_type");
+
+    /**
+     * Every field, as in a single-vehicle response.
+     */
+    public static final Set<VehicleField> ALL = Collections.unmodifiableSet(EnumSet.allOf(VehicleField.class));
+
+    /**
+     * Fields of list elements when the client does not pass {@code ?fields=}: everything except the description,
+     * which is usually most of a row's bytes.
+     */
+    public static final Set<VehicleField> LIST_VIEW = Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(DESCRIPTION)));
+
+    private final String property;
+    private final String column;
+    private final SerializedString serializedProperty;
+
+    VehicleField(String property, String column) {
+        this.property = property;
+        this.column = column;
+        this.serializedProperty = new SerializedString(property);
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Property name with its JSON encoding precomputed, for serializers that write many rows.
+     */
+    public SerializableString getSerializedProperty() {
+        return serializedProperty;
+    }
+
+    public static VehicleField fromProperty(String property) {
+        for (VehicleField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a {@code ?fields=} value: comma separated property names, or {@code *} for all of them. The vin is
+     * always included because it identifies the vehicle and is the page cursor.
+     *
+     * @throws IllegalArgumentException for a name that is not a vehicle property
+     */
+    public static Set<VehicleField> parseList(String fields) {
+        if (fields.trim().equals("*")) {
+            return ALL;
+        }
+        Set<VehicleField> result = EnumSet.of(VIN);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            VehicleField field = fromProperty(property);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + property + "'");
+            }
+            result.add(field);
+        }
+        return result;
+    }
+}
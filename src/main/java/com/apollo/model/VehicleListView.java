@@ -0,0 +1,34 @@
+package com.apollo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * List response body whose elements carry only the selected fields (GET /vehicle?fields=). Serializes as a
+ * plain JSON array.
+ */
+@JsonSerialize(using = VehicleListView.Serializer.class)
+public record VehicleListView(List<CompactVehicle> vehicles, Set<VehicleField> fields) {
+
+    static class Serializer extends StdSerializer<VehicleListView> {
+
+        Serializer() {
+            super(VehicleListView.class);
+        }
+
+        @Override
+        public void serialize(VehicleListView view, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(view, view.vehicles.size());
+            for (CompactVehicle vehicle : view.vehicles) {
+                vehicle.writeJson(generator, view.fields);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
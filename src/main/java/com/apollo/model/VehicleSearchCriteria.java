@@ -0,0 +1,128 @@
+package com.apollo.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
+import java.math.BigDecimal;
+
+/**
+ * Query parameters of GET /vehicle/search. Every criterion is optional; the ones present are ANDed.
+ */
+public class VehicleSearchCriteria {
+
+    private String manufacturerName;
+    private String modelName;
+    private String fuelType;
+    private Integer minModelYear;
+    private Integer maxModelYear;
+    private Integer minHorsePower;
+    private Integer maxHorsePower;
+    private BigDecimal minPurchasePrice;
+    private BigDecimal maxPurchasePrice;
+
+    @Pattern(regexp = "vin|manufacturerName|horsePower|modelName|modelYear|purchasePrice|fuelType",
+             message = "Sort must be one of vin, manufacturerName, horsePower, modelName, modelYear, purchasePrice, fuelType")
+    private String sort = "vin";
+
+    @Pattern(regexp = "asc|desc", message = "Order must be asc or desc")
+    private String order = "asc";
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    private Integer limit = 100;
+
+    public String getManufacturerName() {
+        return manufacturerName;
+    }
+
+    public void setManufacturerName(String manufacturerName) {
+        this.manufacturerName = manufacturerName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    public Integer getMinModelYear() {
+        return minModelYear;
+    }
+
+    public void setMinModelYear(Integer minModelYear) {
+        this.minModelYear = minModelYear;
+    }
+
+    public Integer getMaxModelYear() {
+        return maxModelYear;
+    }
+
+    public void setMaxModelYear(Integer maxModelYear) {
+        this.maxModelYear = maxModelYear;
+    }
+
+    public Integer getMinHorsePower() {
+        return minHorsePower;
+    }
+
+    public void setMinHorsePower(Integer minHorsePower) {
+        this.minHorsePower = minHorsePower;
+    }
+
+    public Integer getMaxHorsePower() {
+        return maxHorsePower;
+    }
+
+    public void setMaxHorsePower(Integer maxHorsePower) {
+        this.maxHorsePower = maxHorsePower;
+    }
+
+    public BigDecimal getMinPurchasePrice() {
+        return minPurchasePrice;
+    }
+
+    public void setMinPurchasePrice(BigDecimal minPurchasePrice) {
+        this.minPurchasePrice = minPurchasePrice;
+    }
+
+    public BigDecimal getMaxPurchasePrice() {
+        return maxPurchasePrice;
+    }
+
+    public void setMaxPurchasePrice(BigDecimal maxPurchasePrice) {
+        this.maxPurchasePrice = maxPurchasePrice;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public void setOrder(String order) {
+        this.order = order;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,42 @@
+package com.apollo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * One row of GET /vehicle/stats: the grouped dimensions (null, and left out of the JSON, when not grouped by),
+ * the number of vehicles and the sums their averages are computed from.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"manufacturerName", "modelName", "modelYear", "fuelType", "count", "avgPurchasePrice", "avgHorsePower"})
+public record VehicleStatsGroup(String manufacturerName,
+                                String modelName,
+                                Integer modelYear,
+                                String fuelType,
+                                long count,
+                                @JsonIgnore BigDecimal sumPurchasePrice,
+                                @JsonIgnore long sumHorsePower) {
+
+    @JsonProperty
+    public BigDecimal avgPurchasePrice() {
+        return count > 0 ? sumPurchasePrice.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : null;
+    }
+
+    @JsonProperty
+    public BigDecimal avgHorsePower() {
+        return count > 0 ? BigDecimal.valueOf(sumHorsePower).divide(BigDecimal.valueOf(count), 1, RoundingMode.HALF_UP) : null;
+    }
+
+    /**
+     * Adds {@code other}'s counts and sums to this group's dimensions.
+     */
+    public VehicleStatsGroup plus(VehicleStatsGroup other) {
+        return new VehicleStatsGroup(manufacturerName, modelName, modelYear, fuelType, count + other.count,
+                sumPurchasePrice.add(other.sumPurchasePrice), sumHorsePower + other.sumHorsePower);
+    }
+}
@@ -0,0 +1,18 @@
+package com.apollo.model;
+
+import java.time.Instant;
+
+/**
+ * Version of a stored vehicle. Versions come from one database sequence, so a vin that is deleted and
+ * re-created never repeats an earlier version.
+ */
+public record VehicleVersion(long version, Instant updatedAt) {
+
+    public static VehicleVersion of(Vehicle vehicle) {
+        return vehicle.getVersion() == null ? null : new VehicleVersion(vehicle.getVersion(), vehicle.getUpdatedAt());
+    }
+
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+}
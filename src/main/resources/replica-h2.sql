@@ -0,0 +1,4 @@
+-- Runs on every connection to a local H2 replica (application-replica.properties) and links its tables
+-- to the in-memory primary.
+CREATE LINKED TABLE IF NOT EXISTS vehicle('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'VEHICLE') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS vehicle_table_version('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'VEHICLE_TABLE_VERSION') READONLY;
@@ -0,0 +1,29 @@
+-- Runs on the embedded H2 database after Hibernate has created the vehicle table
+-- (spring.jpa.defer-datasource-initialization). PostgreSQL uses database_config.txt.
+CREATE SEQUENCE IF NOT EXISTS vehicle_version_seq;
+
+CREATE TABLE IF NOT EXISTS vehicle_table_version (
+    slot SMALLINT NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+MERGE INTO vehicle_table_version (slot, version) KEY (slot)
+SELECT X, 0 FROM SYSTEM_RANGE(0, 15);
+
+-- Archived model years (VehicleArchive), as in database_config.txt
+CREATE TABLE IF NOT EXISTS vehicle_archive (
+    model_year INTEGER NOT NULL,
+    chunk INTEGER NOT NULL,
+    vehicle_count INTEGER NOT NULL,
+    raw_bytes INTEGER NOT NULL,
+    payload VARBINARY NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (model_year, chunk)
+);
+
+CREATE TABLE IF NOT EXISTS vehicle_archive_vin (
+    vin_key VARCHAR(17) NOT NULL PRIMARY KEY,
+    model_year INTEGER NOT NULL,
+    chunk INTEGER NOT NULL,
+    line INTEGER NOT NULL
+);
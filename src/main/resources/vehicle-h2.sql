@@ -0,0 +1,21 @@
+-- The vehicle table Hibernate creates for the servlet application on H2 (see Vehicle), for the runs that have no
+-- JPA: ReactiveApplication and the lean profile. The description is a VARCHAR rather than a CLOB so R2DBC reads it
+-- as a String.
+CREATE TABLE IF NOT EXISTS vehicle (
+    vin VARCHAR_IGNORECASE(17) NOT NULL PRIMARY KEY,
+    manufacturer_name VARCHAR(255) NOT NULL,
+    description VARCHAR NOT NULL,
+    horse_power INTEGER NOT NULL,
+    model_name VARCHAR(255) NOT NULL,
+    model_year INTEGER NOT NULL,
+    purchase_price NUMERIC(10, 2) NOT NULL,
+    fuel_type VARCHAR(50) NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS vehicle_manufacturer_year ON vehicle (manufacturer_name, model_year);
+
+CREATE INDEX IF NOT EXISTS vehicle_fuel_type ON vehicle (fuel_type);
+
+CREATE INDEX IF NOT EXISTS vehicle_model_year ON vehicle (model_year);
@@ -0,0 +1,153 @@
+package com.apollo.reactive;
+
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleVersion;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The reactive routes against a mocked repository: same status codes and error bodies as VehicleControllerTest
+ * expects from the servlet API. Run with mvn -Preactive test.
+ */
+@DisplayName("ReactiveVehicleHandler Tests")
+class ReactiveVehicleHandlerTest {
+
+    private static final String VEHICLE_JSON = "{\"vin\":\"abcd\",\"manufacturerName\":\"Toyota\",\"description\":\"highlander\"," +
+            "\"horsePower\":5,\"modelName\":\"highlander\",\"modelYear\":2014,\"purchasePrice\":12000.12,\"fuelType\":\"gas\"}";
+
+    private ReactiveVehicleRepository repository;
+    private WebTestClient client;
+    private Vehicle testVehicle;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReactiveVehicleRepository.class);
+        ReactiveVehicleHandler handler = new ReactiveVehicleHandler(repository,
+                Validation.buildDefaultValidatorFactory().getValidator(), 1000);
+        client = WebTestClient.bindToRouterFunction(new ReactiveVehicleRoutes().vehicleRoutes(handler)).build();
+        testVehicle = new Vehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, new BigDecimal("12000.12"), "gas");
+        testVehicle.setVersion(7L);
+        testVehicle.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle should stream the list view with the table ETag")
+    void getAllVehicles_ShouldStreamListView() {
+        when(repository.getTableVersion()).thenReturn(Mono.just(42L));
+        when(repository.findAll(VehicleField.LIST_VIEW)).thenReturn(Flux.just(CompactVehicle.of(testVehicle)));
+
+        client.get().uri("/vehicle").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "W/\"t42\"")
+                .expectBody()
+                .jsonPath("$[0].vin").isEqualTo("abcd")
+                .jsonPath("$[0].purchasePrice").isEqualTo(12000.12)
+                .jsonPath("$[0].description").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("GET /vehicle should return 304 for the current table ETag without reading vehicles")
+    void getAllVehicles_ShouldReturn304WhenUnchanged() {
+        when(repository.getTableVersion()).thenReturn(Mono.just(42L));
+
+        client.get().uri("/vehicle").header("If-None-Match", "W/\"t42\"").exchange()
+                .expectStatus().isNotModified();
+
+        verify(repository, never()).findAll(any());
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/{vin} should return the vehicle with its version, or 422 when not found")
+    void getVehicleByVin_ShouldReturnVehicleOr422() {
+        when(repository.findByVin("abcd")).thenReturn(Mono.just(testVehicle));
+        when(repository.findByVin("NONEXISTENT")).thenReturn(Mono.empty());
+
+        client.get().uri("/vehicle/abcd").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"7\"")
+                .expectBody().jsonPath("$.vin").isEqualTo("abcd");
+        client.get().uri("/vehicle/NONEXISTENT").exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody(String.class).isEqualTo("Vin not found");
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/{vin} should return 304 from the version alone")
+    void getVehicleByVin_ShouldReturn304WhenUnchanged() {
+        when(repository.findVersion("abcd")).thenReturn(Mono.just(new VehicleVersion(7L, Instant.parse("2024-01-01T00:00:00Z"))));
+
+        client.get().uri("/vehicle/abcd").header("If-None-Match", "\"7\"").exchange()
+                .expectStatus().isNotModified();
+
+        verify(repository, never()).findByVin(any());
+    }
+
+    @Test
+    @DisplayName("POST /vehicle should return 201, 422 for invalid vehicles, 400 for bad JSON and 409 for duplicates")
+    void createVehicle_ShouldMatchServletErrorContract() {
+        when(repository.insert(any())).thenReturn(Mono.just(testVehicle));
+
+        client.post().uri("/vehicle").contentType(MediaType.APPLICATION_JSON).bodyValue(VEHICLE_JSON).exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"7\"");
+
+        client.post().uri("/vehicle").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"vin\":\"abcd\"}").exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation failed")
+                .jsonPath("$.errors.manufacturerName").isEqualTo("Manufacturer name is required");
+
+        client.post().uri("/vehicle").contentType(MediaType.APPLICATION_JSON).bodyValue("{not json").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid JSON format");
+
+        when(repository.insert(any())).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+        client.post().uri("/vehicle").contentType(MediaType.APPLICATION_JSON).bodyValue(VEHICLE_JSON).exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.error").isEqualTo("Duplicate VIN");
+    }
+
+    @Test
+    @DisplayName("The archive routes should answer 404 Not available rather than be read as a vin")
+    void archive_ShouldNotBeAvailable() {
+        for (String uri : new String[]{"/vehicle/archive", "/vehicle/archive/abcd", "/vehicle/archive/years/1990"}) {
+            client.get().uri(uri).exchange()
+                    .expectStatus().isNotFound()
+                    .expectBody().jsonPath("$.error").isEqualTo("Not available");
+        }
+
+        verify(repository, never()).findByVin(any());
+    }
+
+    @Test
+    @DisplayName("PUT /vehicle/{vin} should return 412 when the If-Match version is stale")
+    void updateVehicle_ShouldReturn412ForStaleVersion() {
+        when(repository.update(eq("abcd"), any(), eq(3L)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        client.put().uri("/vehicle/abcd").contentType(MediaType.APPLICATION_JSON).header("If-Match", "\"3\"")
+                .bodyValue(VEHICLE_JSON).exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.error").isEqualTo("Precondition failed");
+    }
+}
@@ -0,0 +1,31 @@
+package com.apollo.reactive;
+
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.VehicleField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * One element of a streamed list: the vehicle with only the selected fields, the per-element counterpart of
+ * {@link com.apollo.model.VehicleListView}.
+ */
+@JsonSerialize(using = ProjectedVehicle.Serializer.class)
+record ProjectedVehicle(CompactVehicle vehicle, Set<VehicleField> fields) {
+
+    static class Serializer extends StdSerializer<ProjectedVehicle> {
+
+        Serializer() {
+            super(ProjectedVehicle.class);
+        }
+
+        @Override
+        public void serialize(ProjectedVehicle projected, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            projected.vehicle.writeJson(generator, projected.fields);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.apollo.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The vehicle API on WebFlux and R2DBC: a handful of Netty event loop threads serve every connection, and no
+ * thread waits on a slow client or on the database. Built by the reactive Maven profile; the servlet application
+ * (Apollo2Application) stays the default. Reads application-reactive.properties on top of application.properties.
+ */
+@SpringBootApplication
+public class ReactiveApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+
+    /**
+     * Tomcat comes with spring-boot-starter-web and would otherwise be picked for the reactive server too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,239 @@
+package com.apollo.reactive;
+
+import com.apollo.dao.VehicleCache;
+import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleVersion;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Functional WebFlux handlers for the vehicle routes in {@link ReactiveVehicleRoutes}, with the status codes and
+ * error bodies of VehicleController. Exceptions raised while writing are turned into responses by the routes.
+ */
+@Component
+public class ReactiveVehicleHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final ParameterizedTypeReference<List<String>> VIN_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final ReactiveVehicleRepository repository;
+    private final Validator validator;
+    private final int maxLookupVins;
+
+    public ReactiveVehicleHandler(ReactiveVehicleRepository repository, Validator validator,
+                                  @Value("${apollo.vehicle.lookup.max-vins:1000}") int maxLookupVins) {
+        this.repository = repository;
+        this.validator = validator;
+        this.maxLookupVins = maxLookupVins;
+    }
+
+    /**
+     * Streams the list as rows arrive: a JSON array by default, NDJSON for {@code Accept: application/x-ndjson}.
+     * Demand from the connection flows back to the query, so a slow client is never buffered for. With
+     * {@code after} or {@code limit} the response is a keyset page like the servlet API's.
+     */
+    public Mono<ServerResponse> getAllVehicles(ServerRequest request) {
+        Set<VehicleField> view;
+        try {
+            view = request.queryParam("fields").map(VehicleField::parseList).orElse(VehicleField.LIST_VIEW);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid fields",
+                    e.getMessage() + ". Use a comma separated list of vehicle properties, or * for all.");
+        }
+        String after = request.queryParam("after").orElse(null);
+        Integer limit;
+        try {
+            limit = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid limit", "limit must be a number.");
+        }
+        return repository.getTableVersion().flatMap(tableVersion -> {
+            String etag = "W/\"t" + tableVersion + "\"";
+            return request.checkNotModified(etag).switchIfEmpty(Mono.defer(() -> {
+                if (after == null && limit == null) {
+                    MediaType contentType = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                            ? MediaType.APPLICATION_NDJSON
+                            : MediaType.APPLICATION_JSON;
+                    Flux<ProjectedVehicle> vehicles = repository.findAll(view).map(vehicle -> new ProjectedVehicle(vehicle, view));
+                    return ServerResponse.ok().eTag(etag).contentType(contentType).body(vehicles, ProjectedVehicle.class);
+                }
+                return repository.findAfter(after, limit != null ? limit : DEFAULT_PAGE_SIZE, view).collectList().flatMap(vehicles -> {
+                    Map<String, Object> page = new LinkedHashMap<>();
+                    page.put("vehicles", vehicles.stream().map(vehicle -> new ProjectedVehicle(vehicle, view)).toList());
+                    page.put("nextAfter", vehicles.isEmpty() ? null : vehicles.get(vehicles.size() - 1).vin());
+                    return ServerResponse.ok().eTag(etag).bodyValue(page);
+                });
+            }));
+        });
+    }
+
+    public Mono<ServerResponse> getVehicleByVin(ServerRequest request) {
+        String vin = request.pathVariable("vin");
+        // Conditional polls are answered from the version alone, without reading or serializing the row
+        Mono<ServerResponse> notModified = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH) == null
+                ? Mono.empty()
+                : repository.findVersion(vin).flatMap(version -> request.checkNotModified(version.etag()));
+        return notModified.switchIfEmpty(Mono.defer(() -> repository.findByVin(vin)
+                .flatMap(vehicle -> withVersion(ServerResponse.ok(), vehicle).bodyValue(vehicle))
+                .switchIfEmpty(vinNotFound())));
+    }
+
+    public Mono<ServerResponse> createVehicle(ServerRequest request) {
+        return request.bodyToMono(Vehicle.class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")))
+                .flatMap(vehicle -> {
+                    Mono<ServerResponse> invalid = validate(vehicle);
+                    return invalid != null ? invalid : repository.insert(vehicle)
+                            .flatMap(saved -> withVersion(ServerResponse.status(HttpStatus.CREATED), saved).bodyValue(saved));
+                });
+    }
+
+    public Mono<ServerResponse> updateVehicle(ServerRequest request) {
+        String vin = request.pathVariable("vin");
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseVersion(ifMatch);
+            if (expectedVersion == null) {
+                return preconditionFailed();
+            }
+        }
+        Long version = expectedVersion;
+        return request.bodyToMono(Vehicle.class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")))
+                .flatMap(vehicle -> {
+                    Mono<ServerResponse> invalid = validate(vehicle);
+                    return invalid != null ? invalid : repository.update(vin, vehicle, version)
+                            .flatMap(updated -> withVersion(ServerResponse.ok(), updated).bodyValue(updated))
+                            .switchIfEmpty(vinNotFound());
+                });
+    }
+
+    public Mono<ServerResponse> deleteVehicle(ServerRequest request) {
+        return repository.delete(request.pathVariable("vin")).then(ServerResponse.noContent().build());
+    }
+
+    /**
+     * POST /vehicle/lookup: found vehicles once each in request order, and the vins that matched nothing.
+     */
+    public Mono<ServerResponse> lookupVehicles(ServerRequest request) {
+        return request.bodyToMono(VIN_LIST)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")))
+                .flatMap(vins -> {
+                    if (vins.size() > maxLookupVins || vins.stream().anyMatch(vin -> vin == null || vin.isBlank())) {
+                        return error(HttpStatus.BAD_REQUEST, "Invalid lookup",
+                                "The request body must be a JSON array of at most " + maxLookupVins + " non-blank vins.");
+                    }
+                    return repository.findByVins(vins)
+                            .collectMap(vehicle -> VehicleCache.key(vehicle.getVin()))
+                            .flatMap(found -> {
+                                List<Vehicle> vehicles = new ArrayList<>();
+                                List<String> missing = new ArrayList<>();
+                                Set<String> seen = new HashSet<>();
+                                for (String vin : vins) {
+                                    String key = VehicleCache.key(vin);
+                                    if (seen.add(key)) {
+                                        Vehicle vehicle = found.get(key);
+                                        if (vehicle != null) {
+                                            vehicles.add(vehicle);
+                                        } else {
+                                            missing.add(vin);
+                                        }
+                                    }
+                                }
+                                Map<String, Object> response = new LinkedHashMap<>();
+                                response.put("vehicles", vehicles);
+                                response.put("missing", missing);
+                                return ServerResponse.ok().bodyValue(response);
+                            });
+                });
+    }
+
+    /**
+     * Servlet-only routes, so they are not mistaken for a vin by GET /vehicle/{vin}.
+     */
+    public Mono<ServerResponse> notAvailable(ServerRequest request) {
+        return error(HttpStatus.NOT_FOUND, "Not available", request.path() + " is only served by the servlet application.");
+    }
+
+    /**
+     * 422 with the field errors, like MethodArgumentNotValidException in VehicleController; null when valid.
+     */
+    private Mono<ServerResponse> validate(Vehicle vehicle) {
+        Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Vehicle> violation : violations) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Validation failed");
+        errorResponse.put("errors", errors);
+        return ServerResponse.status(422).bodyValue(errorResponse);
+    }
+
+    private static Mono<ServerResponse> vinNotFound() {
+        return Mono.defer(() -> ServerResponse.status(422).contentType(MediaType.TEXT_PLAIN).bodyValue("Vin not found"));
+    }
+
+    private static ServerResponse.BodyBuilder withVersion(ServerResponse.BodyBuilder builder, Vehicle vehicle) {
+        VehicleVersion version = VehicleVersion.of(vehicle);
+        if (version != null) {
+            builder.eTag(version.etag());
+            if (version.updatedAt() != null) {
+                builder.lastModified(version.updatedAt());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Reads the version out of a strong {@code If-Match} tag such as {@code "42"}. Weak or malformed tags
+     * never match and return null.
+     */
+    private static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static Mono<ServerResponse> preconditionFailed() {
+        return error(HttpStatus.PRECONDITION_FAILED, "Precondition failed", "The vehicle has changed since the version given in If-Match.");
+    }
+
+    static Mono<ServerResponse> error(HttpStatus status, String error, String message) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", error);
+        body.put("message", message);
+        return ServerResponse.status(status).bodyValue(body);
+    }
+}
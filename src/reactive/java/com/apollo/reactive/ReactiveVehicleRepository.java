@@ -0,0 +1,276 @@
+package com.apollo.reactive;
+
+import com.apollo.dao.Dialect;
+import com.apollo.dao.VehicleCache;
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleVersion;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * The R2DBC counterpart of {@link VehicleDAO} for the reactive API: the same tables, statements and version
+ * bookkeeping, so both stacks can serve one database. Nothing here blocks; rows are emitted as the driver
+ * decodes them and {@code apollo.vehicle.fetch-size} rows are requested from the database at a time, so a slow
+ * subscriber holds back the query instead of buffering the table. Only H2 and PostgreSQL are supported.
+ */
+@Repository
+public class ReactiveVehicleRepository {
+
+    private static final int TABLE_VERSION_SLOTS = 16;
+
+    private static final String INSERT_COLUMNS = "vin, manufacturer_name, description, horse_power, model_name, model_year, purchase_price, fuel_type, version, updated_at";
+
+    private final DatabaseClient client;
+    private final Dialect dialect;
+    private final int fetchSize;
+    private final int maxPageSize;
+    private final int lookupChunkSize;
+    private volatile Boolean partitioned;
+
+    public ReactiveVehicleRepository(DatabaseClient client, ConnectionFactory connectionFactory,
+                                     @Value("${apollo.vehicle.fetch-size:500}") int fetchSize,
+                                     @Value("${apollo.vehicle.max-page-size:1000}") int maxPageSize,
+                                     @Value("${apollo.vehicle.lookup.chunk-size:500}") int lookupChunkSize) {
+        this.client = client;
+        this.dialect = Dialect.fromProductName(connectionFactory.getMetadata().getName());
+        this.fetchSize = fetchSize;
+        this.maxPageSize = maxPageSize;
+        this.lookupChunkSize = lookupChunkSize;
+    }
+
+    public Mono<Long> getTableVersion() {
+        return client.sql("SELECT SUM(version) FROM vehicle_table_version")
+                .map(row -> row.get(0) instanceof Number version ? version.longValue() : 0L)
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    public Flux<CompactVehicle> findAll(Set<VehicleField> fields) {
+        return client.sql("SELECT " + VehicleDAO.compactColumns(fields) + " FROM vehicle ORDER BY vin")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(compactVehicleMapper(fields))
+                .all();
+    }
+
+    public Flux<CompactVehicle> findAfter(String after, int limit, Set<VehicleField> fields) {
+        int pageSize = Math.min(Math.max(limit, 1), maxPageSize);
+        if (after == null) {
+            return client.sql("SELECT " + VehicleDAO.compactColumns(fields) + " FROM vehicle ORDER BY vin LIMIT :limit")
+                    .bind("limit", pageSize)
+                    .map(compactVehicleMapper(fields))
+                    .all();
+        }
+        return client.sql("SELECT " + VehicleDAO.compactColumns(fields) + " FROM vehicle WHERE vin > :after ORDER BY vin LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", pageSize)
+                .map(compactVehicleMapper(fields))
+                .all();
+    }
+
+    public Mono<Vehicle> findByVin(String vin) {
+        return partitioned().flatMap(partitioned -> client.sql("SELECT * FROM vehicle WHERE " + vinEquals(partitioned))
+                .bind("vin", VehicleCache.key(vin))
+                .map(ReactiveVehicleRepository::vehicle)
+                .one());
+    }
+
+    public Mono<VehicleVersion> findVersion(String vin) {
+        return partitioned().flatMap(partitioned -> client.sql("SELECT version, updated_at FROM vehicle WHERE " + vinEquals(partitioned))
+                .bind("vin", VehicleCache.key(vin))
+                .map(row -> new VehicleVersion(row.get("version", Long.class), row.get("updated_at", OffsetDateTime.class).toInstant()))
+                .one());
+    }
+
+    /**
+     * Case-insensitive multi-get with one {@code = ANY(:vins)} query per {@code apollo.vehicle.lookup.chunk-size}
+     * upper-cased vins; vins with no vehicle emit nothing.
+     */
+    public Flux<Vehicle> findByVins(Collection<String> vins) {
+        String[] keys = vins.stream().map(VehicleCache::key).distinct().toArray(String[]::new);
+        return partitioned().flatMapMany(partitioned -> Flux.range(0, (keys.length + lookupChunkSize - 1) / lookupChunkSize)
+                .map(chunk -> Arrays.copyOfRange(keys, chunk * lookupChunkSize, Math.min((chunk + 1) * lookupChunkSize, keys.length)))
+                .concatMap(chunk -> client.sql("SELECT * FROM vehicle WHERE " + vinIn(partitioned))
+                        .bind("vins", chunk)
+                        .map(ReactiveVehicleRepository::vehicle)
+                        .all()));
+    }
+
+    /**
+     * Inserts in one round trip and emits the stored row. Duplicates surface as DuplicateKeyException.
+     */
+    public Mono<Vehicle> insert(Vehicle vehicle) {
+        String insert = "INSERT INTO vehicle (" + INSERT_COLUMNS + ") VALUES (:vin, :manufacturerName, :description, " +
+                        ":horsePower, :modelName, :modelYear, :purchasePrice, :fuelType, " + nextVersion() + ", CURRENT_TIMESTAMP)";
+        return bindVehicle(client.sql(returning(insert)).bind("vin", vehicle.getVin()), vehicle)
+                .map(ReactiveVehicleRepository::vehicle)
+                .one()
+                .flatMap(this::bumpTableVersion);
+    }
+
+    /**
+     * Emits the updated row, or nothing when no vehicle has the vin. With an {@code expectedVersion} the update
+     * only applies at that version and fails with OptimisticLockingFailureException when the vehicle has moved on.
+     */
+    public Mono<Vehicle> update(String vin, Vehicle vehicle, Long expectedVersion) {
+        return partitioned().flatMap(partitioned -> update(vin, vehicle, expectedVersion, vinEquals(partitioned)));
+    }
+
+    private Mono<Vehicle> update(String vin, Vehicle vehicle, Long expectedVersion, String vinEquals) {
+        String update = "UPDATE vehicle SET manufacturer_name = :manufacturerName, description = :description, " +
+                        "horse_power = :horsePower, model_name = :modelName, model_year = :modelYear, " +
+                        "purchase_price = :purchasePrice, fuel_type = :fuelType, version = " + nextVersion() + ", " +
+                        "updated_at = CURRENT_TIMESTAMP WHERE " + vinEquals +
+                        (expectedVersion != null ? " AND version = :expectedVersion" : "");
+        DatabaseClient.GenericExecuteSpec spec = bindVehicle(client.sql(returning(update)).bind("vin", VehicleCache.key(vin)), vehicle);
+        if (expectedVersion != null) {
+            spec = spec.bind("expectedVersion", expectedVersion);
+        }
+        return spec.map(ReactiveVehicleRepository::vehicle)
+                .one()
+                .flatMap(this::bumpTableVersion)
+                .switchIfEmpty(Mono.defer(() -> expectedVersion == null
+                        ? Mono.empty()
+                        : findVersion(vin).flatMap(version -> Mono.error(new OptimisticLockingFailureException(
+                                "Vehicle " + vin + " is no longer at version " + expectedVersion)))));
+    }
+
+    public Mono<Void> delete(String vin) {
+        return partitioned().flatMap(partitioned -> client.sql("DELETE FROM vehicle WHERE " + vinEquals(partitioned))
+                .bind("vin", VehicleCache.key(vin))
+                .fetch()
+                .rowsUpdated())
+                .flatMap(rows -> rows > 0 ? bumpTableVersion(rows) : Mono.just(rows))
+                .then();
+    }
+
+    /**
+     * Runs after the write has committed (every statement here auto-commits), like VehicleDAO.bumpTableVersion.
+     */
+    private <T> Mono<T> bumpTableVersion(T written) {
+        return client.sql("UPDATE vehicle_table_version SET version = version + 1 WHERE slot = :slot")
+                .bind("slot", ThreadLocalRandom.current().nextInt(TABLE_VERSION_SLOTS))
+                .then()
+                .thenReturn(written);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindVehicle(DatabaseClient.GenericExecuteSpec spec, Vehicle vehicle) {
+        return spec.bind("manufacturerName", vehicle.getManufacturerName())
+                .bind("description", vehicle.getDescription())
+                .bind("horsePower", vehicle.getHorsePower())
+                .bind("modelName", vehicle.getModelName())
+                .bind("modelYear", vehicle.getModelYear())
+                .bind("purchasePrice", vehicle.getPurchasePrice())
+                .bind("fuelType", vehicle.getFuelType());
+    }
+
+    private String returning(String write) {
+        return dialect == Dialect.H2 ? "SELECT * FROM FINAL TABLE (" + write + ")" : write + " RETURNING *";
+    }
+
+    private String nextVersion() {
+        return dialect == Dialect.H2 ? "NEXT VALUE FOR vehicle_version_seq" : "nextval('vehicle_version_seq')";
+    }
+
+    /**
+     * Same index use as VehicleDAO.vinEquals: the case-insensitive column on H2, UPPER(vin) on PostgreSQL, and on the
+     * partitioned layout the vin's model year from vehicle_vin, so only that year's partition is probed.
+     */
+    private String vinEquals(boolean partitioned) {
+        if (dialect == Dialect.H2) {
+            return "vin = :vin";
+        }
+        return partitioned
+                ? "(UPPER(vin), model_year) = (SELECT vin_key, model_year FROM vehicle_vin WHERE vin_key = :vin)"
+                : "UPPER(vin) = :vin";
+    }
+
+    private String vinIn(boolean partitioned) {
+        if (dialect == Dialect.H2) {
+            return "vin = ANY(:vins)";
+        }
+        return partitioned
+                ? "(UPPER(vin), model_year) IN (SELECT vin_key, model_year FROM vehicle_vin WHERE vin_key = ANY(:vins))"
+                : "UPPER(vin) = ANY(:vins)";
+    }
+
+    /**
+     * Whether vehicle has the model_year partitions and vehicle_vin directory of database_config.txt, as
+     * VehicleDAO.isPartitioned; looked up once, without blocking.
+     */
+    private Mono<Boolean> partitioned() {
+        Boolean known = partitioned;
+        if (known != null) {
+            return Mono.just(known);
+        }
+        if (dialect != Dialect.POSTGRESQL) {
+            partitioned = false;
+            return Mono.just(false);
+        }
+        return client.sql("SELECT to_regclass('vehicle_vin') IS NOT NULL")
+                .map(row -> Boolean.TRUE.equals(row.get(0, Boolean.class)))
+                .one()
+                .doOnNext(found -> partitioned = found);
+    }
+
+    private static Vehicle vehicle(Readable row) {
+        Vehicle vehicle = new Vehicle(
+                row.get("vin", String.class),
+                row.get("manufacturer_name", String.class),
+                row.get("description", String.class),
+                row.get("horse_power", Integer.class),
+                row.get("model_name", String.class),
+                row.get("model_year", Integer.class),
+                row.get("purchase_price", BigDecimal.class),
+                row.get("fuel_type", String.class));
+        vehicle.setVersion(row.get("version", Long.class));
+        OffsetDateTime updatedAt = row.get("updated_at", OffsetDateTime.class);
+        vehicle.setUpdatedAt(updatedAt != null ? updatedAt.toInstant() : null);
+        return vehicle;
+    }
+
+    /**
+     * Maps a {@link VehicleDAO#compactColumns} row by position; unselected fields are left null or zero.
+     */
+    private static Function<Readable, CompactVehicle> compactVehicleMapper(Set<VehicleField> fields) {
+        int[] columns = new int[VehicleField.values().length];
+        Arrays.fill(columns, -1);
+        VehicleField[] selected = VehicleDAO.inFieldOrder(fields);
+        for (int i = 0; i < selected.length; i++) {
+            columns[selected[i].ordinal()] = i;
+        }
+        return row -> new CompactVehicle(
+                string(row, columns[VehicleField.VIN.ordinal()]),
+                string(row, columns[VehicleField.MANUFACTURER_NAME.ordinal()]),
+                string(row, columns[VehicleField.DESCRIPTION.ordinal()]),
+                integer(row, columns[VehicleField.HORSE_POWER.ordinal()]),
+                string(row, columns[VehicleField.MODEL_NAME.ordinal()]),
+                integer(row, columns[VehicleField.MODEL_YEAR.ordinal()]),
+                columns[VehicleField.PURCHASE_PRICE.ordinal()] >= 0 ? row.get(columns[VehicleField.PURCHASE_PRICE.ordinal()], Long.class) : 0L,
+                string(row, columns[VehicleField.FUEL_TYPE.ordinal()]));
+    }
+
+    private static String string(Readable row, int column) {
+        return column >= 0 ? row.get(column, String.class) : null;
+    }
+
+    private static int integer(Readable row, int column) {
+        return column >= 0 ? row.get(column, Integer.class) : 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.apollo.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The /vehicle routes of VehicleController that the reactive API serves, and the exception mapping its
+ * {@code @ExceptionHandler}s do there. Batch, import, search, text search, stats, changes, cache stats and the
+ * archive stay servlet-only.
+ */
+@Configuration
+public class ReactiveVehicleRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> vehicleRoutes(ReactiveVehicleHandler handler) {
+        return route()
+                .path("/vehicle", vehicle -> vehicle
+                        .GET("", handler::getAllVehicles)
+                        .POST("", contentType(MediaType.APPLICATION_JSON), handler::createVehicle)
+                        .POST("/lookup", contentType(MediaType.APPLICATION_JSON), handler::lookupVehicles)
+                        .GET("/{path:search|stats|changes|archive}", handler::notAvailable)
+                        .GET("/cache/stats", handler::notAvailable)
+                        .GET("/search/text", handler::notAvailable)
+                        .GET("/archive/**", handler::notAvailable)
+                        .GET("/{vin}", handler::getVehicleByVin)
+                        .PUT("/{vin}", contentType(MediaType.APPLICATION_JSON), handler::updateVehicle)
+                        .DELETE("/{vin}", handler::deleteVehicle))
+                .onError(ServerWebInputException.class, (e, request) -> ReactiveVehicleHandler.error(HttpStatus.BAD_REQUEST,
+                        "Invalid JSON format", "The request body could not be parsed as a Vehicle JSON representation."))
+                .onError(DuplicateKeyException.class, (e, request) -> ReactiveVehicleHandler.error(HttpStatus.CONFLICT,
+                        "Duplicate VIN", "A vehicle with this VIN already exists."))
+                .onError(OptimisticLockingFailureException.class, (e, request) -> ReactiveVehicleHandler.preconditionFailed())
+                .onError(DataIntegrityViolationException.class, (e, request) -> ReactiveVehicleHandler.error(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Constraint violation", "The vehicle violates a database constraint."))
+                .onError(DataAccessResourceFailureException.class, (e, request) -> {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("error", "Database unavailable");
+                    error.put("message", "No database connection became available in time. Retry later.");
+                    return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").bodyValue(error);
+                })
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.apollo.config;
+
+import com.apollo.config.RateLimiter.EndpointClass;
+import com.apollo.config.RateLimiter.Limit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimiter Tests")
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(1000, Duration.ofMinutes(10), now::get);
+    }
+
+    @Test
+    @DisplayName("A client should get its burst at once, then one request per interval, independently of other clients")
+    void tryAcquire_ShouldAllowBurstThenRate() {
+        rateLimiter.setLimit(EndpointClass.QUERY, new Limit(2, 3, 0));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.QUERY));
+        }
+        long wait = rateLimiter.tryAcquire("a", EndpointClass.QUERY);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), wait);
+        assertEquals(0, rateLimiter.tryAcquire("b", EndpointClass.QUERY));
+        assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.LOOKUP));
+
+        now.addAndGet(wait);
+        assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.QUERY));
+        assertTrue(rateLimiter.tryAcquire("a", EndpointClass.QUERY) > 0);
+    }
+
+    @Test
+    @DisplayName("Limits changed at runtime should apply from the next request")
+    void setLimit_ShouldApplyImmediately() {
+        rateLimiter.setLimit(EndpointClass.WRITE, new Limit(1, 1, 0));
+        assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.WRITE));
+        assertTrue(rateLimiter.tryAcquire("a", EndpointClass.WRITE) > 0);
+
+        // A client that used up the old limit starts the new one with its burst used up, not a second in debt
+        rateLimiter.setLimit(EndpointClass.WRITE, new Limit(1000, 1000, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), rateLimiter.tryAcquire("a", EndpointClass.WRITE));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.WRITE));
+
+        rateLimiter.setLimit(EndpointClass.WRITE, new Limit(0, 1, 0));
+        assertEquals(0, rateLimiter.tryAcquire("a", EndpointClass.WRITE));
+
+        rateLimiter.setLimit(EndpointClass.SCAN, new Limit(0, 1, 1));
+        assertTrue(rateLimiter.tryEnter(EndpointClass.SCAN));
+        assertFalse(rateLimiter.tryEnter(EndpointClass.SCAN));
+        rateLimiter.setLimit(EndpointClass.SCAN, new Limit(0, 1, 2));
+        assertTrue(rateLimiter.tryEnter(EndpointClass.SCAN));
+        assertEquals(2, rateLimiter.getInFlight(EndpointClass.SCAN));
+    }
+
+    @Test
+    @DisplayName("The filter should return 429 with Retry-After when the client is over its rate or the class is full")
+    void filter_ShouldReturn429WithRetryAfter() throws Exception {
+        rateLimiter.setLimit(EndpointClass.LOOKUP, new Limit(0.5, 1, 0));
+        rateLimiter.setLimit(EndpointClass.SCAN, new Limit(0, 1, 1));
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter, new ObjectMapper(), "X-API-Key");
+
+        assertEquals(200, filter(filter, "GET", "/vehicle/abcd", "key-1").getStatus());
+        MockHttpServletResponse limited = filter(filter, "GET", "/vehicle/abcd", "key-1");
+        assertEquals(429, limited.getStatus());
+        assertEquals("2", limited.getHeader("Retry-After"));
+        assertTrue(limited.getContentAsString().contains("Too many requests"));
+        assertEquals(200, filter(filter, "GET", "/vehicle/abcd", "key-2").getStatus());
+        assertEquals(200, filter(filter, "GET", "/actuator/health", "key-1").getStatus());
+
+        assertTrue(rateLimiter.tryEnter(EndpointClass.SCAN));
+        MockHttpServletResponse full = filter(filter, "GET", "/vehicle", "key-3");
+        assertEquals(429, full.getStatus());
+        assertEquals("1", full.getHeader("Retry-After"));
+        rateLimiter.exit(EndpointClass.SCAN);
+        assertEquals(200, filter(filter, "GET", "/vehicle", "key-3").getStatus());
+        assertEquals(0, rateLimiter.getInFlight(EndpointClass.SCAN));
+    }
+
+    @Test
+    @DisplayName("Vehicle routes should be classified by what they cost")
+    void classify_ShouldMapRoutesToEndpointClasses() {
+        assertEquals(EndpointClass.LOOKUP, RateLimitFilter.classify(request("GET", "/vehicle/abcd")));
+        assertEquals(EndpointClass.SCAN, RateLimitFilter.classify(request("GET", "/vehicle")));
+        MockHttpServletRequest page = request("GET", "/vehicle");
+        page.setParameter("limit", "100");
+        assertEquals(EndpointClass.QUERY, RateLimitFilter.classify(page));
+        assertEquals(EndpointClass.QUERY, RateLimitFilter.classify(request("GET", "/vehicle/stats")));
+        assertEquals(EndpointClass.QUERY, RateLimitFilter.classify(request("POST", "/vehicle/lookup")));
+        assertEquals(EndpointClass.BULK, RateLimitFilter.classify(request("POST", "/vehicle/import")));
+        assertEquals(EndpointClass.WRITE, RateLimitFilter.classify(request("PUT", "/vehicle/abcd")));
+        assertEquals(EndpointClass.QUERY, RateLimitFilter.classify(request("GET", "/vehicle/archive")));
+        assertEquals(EndpointClass.LOOKUP, RateLimitFilter.classify(request("GET", "/vehicle/archive/abcd")));
+        assertEquals(EndpointClass.SCAN, RateLimitFilter.classify(request("GET", "/vehicle/archive/years/1990")));
+        assertNull(RateLimitFilter.classify(request("GET", "/vehicles")));
+        assertNull(RateLimitFilter.classify(request("GET", "/actuator/ratelimits")));
+    }
+
+    private static MockHttpServletResponse filter(RateLimitFilter filter, String method, String uri, String apiKey) throws Exception {
+        MockHttpServletRequest request = request(method, uri);
+        request.addHeader("X-API-Key", apiKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
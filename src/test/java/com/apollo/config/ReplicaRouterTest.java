@@ -0,0 +1,115 @@
+package com.apollo.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReplicaRouter Tests")
+class ReplicaRouterTest {
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+
+    @BeforeEach
+    void setUp() {
+        primary = new DriverManagerDataSource("jdbc:h2:mem:router-primary;DB_CLOSE_DELAY=-1");
+        replica1 = new DriverManagerDataSource("jdbc:h2:mem:router-replica1;DB_CLOSE_DELAY=-1");
+        replica2 = new DriverManagerDataSource("jdbc:h2:mem:router-replica2;DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    @DisplayName("Reads should alternate between replicas, and a pinned route should stay on one")
+    void getConnection_ShouldRoundRobinAndPin() throws Exception {
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(replica1, replica2), Duration.ofSeconds(10), Duration.ofSeconds(5));
+
+        assertEquals("router-replica1", database(router));
+        assertEquals("router-replica2", database(router));
+
+        router.pinReplica();
+        String pinned = database(router);
+        assertEquals(pinned, database(router));
+        assertEquals(pinned, database(router));
+        router.clearRoute();
+    }
+
+    @Test
+    @DisplayName("A replica that fails should be skipped, and reads fall back to the primary when none is up")
+    void getConnection_ShouldSkipFailedReplicas() throws Exception {
+        DataSource down = new DriverManagerDataSource("jdbc:unknown:replica");
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(down, replica2), Duration.ofSeconds(10), Duration.ofSeconds(5));
+
+        assertEquals("router-replica2", database(router));
+        assertFalse(router.isUp(0));
+        assertEquals("router-replica2", database(router));
+
+        ReplicaRouter allDown = new ReplicaRouter(primary, List.of(down), Duration.ofSeconds(10), Duration.ofSeconds(5));
+        assertEquals("router-primary", database(allDown));
+    }
+
+    @Test
+    @DisplayName("A replica whose pool is full should be passed over for that read but stay up")
+    void getConnection_ShouldNotQuarantineSaturatedReplica() throws Exception {
+        DataSource saturated = failing(new SQLTransientConnectionException("replica-1 - Connection is not available, request timed out"));
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(saturated, replica2), Duration.ofSeconds(10), Duration.ofSeconds(5));
+
+        assertEquals("router-replica2", database(router));
+        assertTrue(router.isUp(0));
+
+        DataSource unreachable = failing(new SQLTransientConnectionException("Connection refused", "08001"));
+        ReplicaRouter down = new ReplicaRouter(primary, List.of(unreachable, replica2), Duration.ofSeconds(10), Duration.ofSeconds(5));
+        assertEquals("router-replica2", database(down));
+        assertFalse(down.isUp(0), "A pool timeout caused by a connection failure should still quarantine");
+    }
+
+    @Test
+    @DisplayName("routeToPrimary and recent writes should keep reads on the primary")
+    void routeToPrimary_ShouldReadFromPrimary() throws Exception {
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(replica1), Duration.ofSeconds(10), Duration.ofSeconds(5));
+
+        router.routeToPrimary();
+        assertEquals("router-primary", database(router));
+        router.clearRoute();
+        assertEquals("router-replica1", database(router));
+
+        router.recordWrite("ABCD");
+        assertTrue(router.isRecentlyWritten("ABCD"));
+        assertFalse(router.isRecentlyWritten("EFGH"));
+    }
+
+    @Test
+    @DisplayName("Asking for a connection with other credentials should fail with an SQLException")
+    void getConnection_ShouldRejectOtherCredentials() {
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(replica1), Duration.ofSeconds(10), Duration.ofSeconds(5));
+
+        assertThrows(SQLFeatureNotSupportedException.class, () -> router.getDataSource().getConnection("sa", ""));
+    }
+
+    private DataSource failing(SQLException failure) {
+        return new DelegatingDataSource(replica1) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw failure;
+            }
+        };
+    }
+
+    private static String database(ReplicaRouter router) throws SQLException {
+        try (Connection connection = router.getDataSource().getConnection()) {
+            String url = connection.getMetaData().getURL();
+            return url.substring("jdbc:h2:mem:".length(), url.indexOf(';') > 0 ? url.indexOf(';') : url.length());
+        }
+    }
+}
@@ -11,8 +11,22 @@ package com.apollo.controller;
  * - MockMvc for Spring MVC endpoint testing
  * - Mockito for mocking dependencies
  */
+import com.apollo.dao.VehicleArchive;
+import com.apollo.dao.VehicleCache;
 import com.apollo.dao.VehicleDAO;
+import com.apollo.dao.VehicleStats;
+import com.apollo.dao.VehicleTextSearch;
+import com.apollo.importer.VehicleImporter;
+import com.apollo.model.ArchivedYear;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.CompactVehicle;
+import com.apollo.model.ImportReport;
 import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleSearchCriteria;
+import com.apollo.model.VehicleStatsGroup;
+import com.apollo.model.VehicleVersion;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,13 +34,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.hamcrest.Matchers.hasSize;
@@ -34,8 +59,14 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -54,6 +85,24 @@ class VehicleControllerTest {
     @MockBean
     private VehicleDAO vehicleDAO;
 
+    @MockBean
+    private VehicleCache vehicleCache;
+
+    @MockBean
+    private VehicleImporter vehicleImporter;
+
+    @MockBean
+    private VehicleChangeStreams vehicleChangeStreams;
+
+    @MockBean
+    private VehicleStats vehicleStats;
+
+    @MockBean
+    private VehicleTextSearch vehicleTextSearch;
+
+    @MockBean
+    private VehicleArchive vehicleArchive;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -68,8 +117,8 @@ class VehicleControllerTest {
     @Test
     @DisplayName("GET /vehicle should return all vehicles with status 200")
     public void getAllVehicles_ShouldReturnListOfVehicles() throws Exception {
-        List<Vehicle> vehicles = Arrays.asList(
-                new Vehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, new BigDecimal(12000.12), "gas"), new Vehicle("efgh", "Honda", "sedan", 100, "sedan", 2025, new BigDecimal(25000.50), "gasoline")
+        List<CompactVehicle> vehicles = Arrays.asList(
+                new CompactVehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, 1200012L, "gas"), new CompactVehicle("efgh", "Honda", "sedan", 100, "sedan", 2025, 2500050L, "gasoline")
         );
 
         assertEquals(2, vehicles.size(), "Should have 2 vehicles in test data");
@@ -106,6 +155,228 @@ class VehicleControllerTest {
         verify(vehicleDAO, times(1)).getAllVehicles();
     }
 
+    @Test
+    @DisplayName("GET /vehicle should tag the collection with the table version and return 304 when it is unchanged")
+    void getAllVehicles_ShouldReturn304WhenTableVersionMatches() throws Exception {
+        when(vehicleDAO.getTableVersion()).thenReturn(42L);
+
+        mockMvc.perform(get("/vehicle").header("If-None-Match", "W/\"t42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"t42\""));
+
+        verify(vehicleDAO, never()).getAllVehicles();
+    }
+
+    @Test
+    @DisplayName("GET /vehicle?after=&limit= should return a keyset page with the next cursor")
+    void getAllVehicles_ShouldReturnKeysetPage() throws Exception {
+        List<CompactVehicle> vehicles = Arrays.asList(
+                new CompactVehicle("efgh", "Honda", "sedan", 100, "sedan", 2025, 2500050L, "gasoline"),
+                new CompactVehicle("ijkl", "Ford", "truck", 300, "f150", 2020, 4000000L, "diesel")
+        );
+        when(vehicleDAO.getVehiclesAfter("abcd", 2)).thenReturn(vehicles);
+
+        mockMvc.perform(get("/vehicle").param("after", "abcd").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicles", hasSize(2)))
+                .andExpect(jsonPath("$.vehicles[0].vin", is("efgh")))
+                .andExpect(jsonPath("$.vehicles[0].horsePower", is(100)))
+                .andExpect(jsonPath("$.vehicles[0].purchasePrice", is(25000.50)))
+                .andExpect(jsonPath("$.vehicles[1].purchasePrice", is(40000.00)))
+                .andExpect(jsonPath("$.nextAfter", is("ijkl")));
+
+        verify(vehicleDAO, times(1)).getVehiclesAfter("abcd", 2);
+        verify(vehicleDAO, never()).getAllVehicles();
+    }
+
+    @Test
+    @DisplayName("GET /vehicle should leave the description out of list elements by default")
+    void getAllVehicles_ShouldUseCompactListView() throws Exception {
+        when(vehicleDAO.getAllVehicles()).thenReturn(List.of(
+                new CompactVehicle("abcd", "Toyota", null, 5, "highlander", 2014, 1200012L, "gas")));
+
+        mockMvc.perform(get("/vehicle"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].vin", is("abcd")))
+                .andExpect(jsonPath("$[0].purchasePrice", is(12000.12)))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /vehicle?fields= should read and return only the requested fields")
+    void getAllVehicles_ShouldProjectRequestedFields() throws Exception {
+        Set<VehicleField> fields = EnumSet.of(VehicleField.VIN, VehicleField.MODEL_NAME, VehicleField.MODEL_YEAR);
+        when(vehicleDAO.getVehiclesAfter(null, 100, fields)).thenReturn(List.of(
+                new CompactVehicle("abcd", null, null, 0, "highlander", 2014, 0L, null)));
+
+        mockMvc.perform(get("/vehicle").param("limit", "100").param("fields", "modelName,modelYear"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"vehicles\":[{\"vin\":\"abcd\",\"modelName\":\"highlander\",\"modelYear\":2014}],\"nextAfter\":\"abcd\"}"));
+
+        verify(vehicleDAO, times(1)).getVehiclesAfter(null, 100, fields);
+    }
+
+    @Test
+    @DisplayName("GET /vehicle?fields= should return 400 for an unknown field")
+    void getAllVehicles_ShouldReturn400ForUnknownField() throws Exception {
+        mockMvc.perform(get("/vehicle").param("fields", "vin,color"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid fields")))
+                .andExpect(jsonPath("$.message", containsString("color")));
+
+        verify(vehicleDAO, never()).getAllVehicles();
+    }
+
+    @Test
+    @DisplayName("GET /vehicle?stream=true should stream every vehicle as a JSON array")
+    void streamAllVehicles_ShouldWriteEveryRow() throws Exception {
+        doAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            generator.writeStartArray();
+            generator.writeObject(testVehicle);
+            generator.writeObject(new Vehicle("efgh", "Honda", "sedan", 100, "sedan", 2025, new BigDecimal("25000.50"), "gasoline"));
+            generator.writeEndArray();
+            return null;
+        }).when(vehicleDAO).streamAllVehicles(any());
+
+        MvcResult result = mockMvc.perform(get("/vehicle").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].vin", is("abcd")))
+                .andExpect(jsonPath("$[1].vin", is("efgh")));
+
+        verify(vehicleDAO, never()).getAllVehicles();
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/changes should resume after the Last-Event-ID")
+    void streamChanges_ShouldResumeAfterLastEventId() throws Exception {
+        when(vehicleChangeStreams.subscribe(41L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/vehicle/changes").header("Last-Event-ID", "41").param("since", "7"))
+                .andExpect(request().asyncStarted());
+
+        verify(vehicleChangeStreams, times(1)).subscribe(41L);
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/changes should return 503 when the subscriber limit is reached")
+    void streamChanges_ShouldReturn503WhenFull() throws Exception {
+        when(vehicleChangeStreams.subscribe(null)).thenThrow(new VehicleChangeStreams.ChangeFeedFullException("full"));
+
+        mockMvc.perform(get("/vehicle/changes"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error", is("Too many subscribers")));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/stats should return grouped counts and averages tagged with the table version")
+    void getStats_ShouldReturnGroups() throws Exception {
+        Set<VehicleField> dimensions = EnumSet.of(VehicleField.MANUFACTURER_NAME);
+        VehicleStatsGroup toyota = new VehicleStatsGroup("Toyota", null, null, null, 2, new BigDecimal("30000.00"), 300);
+        VehicleStatsGroup total = new VehicleStatsGroup(null, null, null, null, 2, new BigDecimal("30000.00"), 300);
+        when(vehicleDAO.getTableVersion()).thenReturn(42L);
+        when(vehicleStats.report(dimensions, 42L)).thenReturn(new VehicleStats.Report(42L, total, List.of(toyota)));
+
+        mockMvc.perform(get("/vehicle/stats").param("groupBy", "manufacturerName"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"t42\""))
+                .andExpect(jsonPath("$.groupBy[0]", is("manufacturerName")))
+                .andExpect(jsonPath("$.total.count", is(2)))
+                .andExpect(jsonPath("$.groups", hasSize(1)))
+                .andExpect(jsonPath("$.groups[0].manufacturerName", is("Toyota")))
+                .andExpect(jsonPath("$.groups[0].avgPurchasePrice", is(15000.00)))
+                .andExpect(jsonPath("$.groups[0].avgHorsePower", is(150.0)))
+                .andExpect(jsonPath("$.groups[0].modelName").doesNotExist())
+                .andExpect(jsonPath("$.groups[0].sumPurchasePrice").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/stats should return 400 for a field that cannot be grouped by")
+    void getStats_ShouldReturn400ForInvalidGroupBy() throws Exception {
+        mockMvc.perform(get("/vehicle/stats").param("groupBy", "manufacturerName,description"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid groupBy")))
+                .andExpect(jsonPath("$.message", containsString("description")));
+
+        verify(vehicleStats, never()).report(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/search/text should return ranked vehicles and 400 for a query without words")
+    void searchText_ShouldReturnRankedVehicles() throws Exception {
+        when(vehicleTextSearch.search(List.of("high", "suv"), 5)).thenReturn(List.of(testVehicle));
+
+        mockMvc.perform(get("/vehicle/search/text").param("q", "High SUV suv").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].vin", is("abcd")));
+
+        mockMvc.perform(get("/vehicle/search/text").param("q", " -- "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid query")));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/search/text should return 503 with Retry-After while the index is building")
+    void searchText_ShouldReturn503WhileBuilding() throws Exception {
+        when(vehicleTextSearch.search(List.of("camry"), 20)).thenReturn(null);
+
+        mockMvc.perform(get("/vehicle/search/text").param("q", "camry"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error", is("Search index building")));
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/lookup should return found vehicles once in request order and list missing vins")
+    void lookupVehicles_ShouldReturnFoundAndMissing() throws Exception {
+        Vehicle other = new Vehicle("efgh", "Honda", "civic", 150, "civic", 2020, new BigDecimal("25000.50"), "gas");
+        Map<String, Vehicle> found = new HashMap<>();
+        found.put("ABCD", testVehicle);
+        found.put("EFGH", other);
+        when(vehicleDAO.getVehiclesByVins(List.of("efgh", "nope", "ABCD", "abcd"))).thenReturn(found);
+
+        mockMvc.perform(post("/vehicle/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"efgh\", \"nope\", \"ABCD\", \"abcd\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicles", hasSize(2)))
+                .andExpect(jsonPath("$.vehicles[0].vin", is("efgh")))
+                .andExpect(jsonPath("$.vehicles[1].vin", is("abcd")))
+                .andExpect(jsonPath("$.missing", hasSize(1)))
+                .andExpect(jsonPath("$.missing[0]", is("nope")));
+
+        verify(vehicleDAO, times(1)).getVehiclesByVins(anyList());
+        verify(vehicleDAO, never()).getVehicleByVin(anyString());
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/lookup should return 400 for blank vins or more than the limit")
+    void lookupVehicles_ShouldReturn400ForInvalidList() throws Exception {
+        mockMvc.perform(post("/vehicle/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"abcd\", \" \"]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid lookup")));
+
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            tooMany.add("vin" + i);
+        }
+        mockMvc.perform(post("/vehicle/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooMany)))
+                .andExpect(status().isBadRequest());
+
+        verify(vehicleDAO, never()).getVehiclesByVins(anyList());
+    }
+
     @Test
     @DisplayName("POST /vehicle should create vehicle and return status 201")
     public void createVehicle_ShouldCreateVehicleAndReturn201() throws Exception {
@@ -158,6 +429,104 @@ class VehicleControllerTest {
         verify(vehicleDAO, never()).insertVehicle(any(Vehicle.class));
     }
 
+    @Test
+    @DisplayName("POST /vehicle should return 409 when the VIN already exists")
+    void createVehicle_ShouldReturn409WhenVinIsDuplicate() throws Exception {
+        when(vehicleDAO.insertVehicle(any(Vehicle.class))).thenThrow(new DuplicateKeyException("vin_unique_case_insensitive"));
+
+        mockMvc.perform(post("/vehicle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testVehicle)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is("Duplicate VIN")));
+
+        verify(vehicleDAO, times(1)).insertVehicle(any(Vehicle.class));
+        verify(vehicleDAO, never()).getVehicleByVin(anyString());
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/batch should write valid items and report invalid ones without aborting")
+    void createVehicles_ShouldReportPerItemResults() throws Exception {
+        Vehicle invalidVehicle = new Vehicle("efgh", null, "sedan", 100, "sedan", 2025, new BigDecimal("25000.50"), "gasoline");
+        when(vehicleDAO.insertVehicles(anyList(), eq(false))).thenReturn(List.of(BatchItemResult.Status.CREATED));
+
+        mockMvc.perform(post("/vehicle/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testVehicle, invalidVehicle))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.invalid", is(1)))
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[1].vin", is("efgh")))
+                .andExpect(jsonPath("$.results[1].status", is("INVALID")))
+                .andExpect(jsonPath("$.results[1].errors.manufacturerName", is("Manufacturer name is required")));
+
+        verify(vehicleDAO, times(1)).insertVehicles(argThat(vehicles -> vehicles.size() == 1), eq(false));
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/batch should accept NDJSON and upsert when asked")
+    void createVehicles_ShouldAcceptNdjson() throws Exception {
+        Vehicle other = new Vehicle("efgh", "Honda", "sedan", 100, "sedan", 2025, new BigDecimal("25000.50"), "gasoline");
+        when(vehicleDAO.insertVehicles(anyList(), eq(true)))
+                .thenReturn(List.of(BatchItemResult.Status.UPSERTED, BatchItemResult.Status.UPSERTED));
+
+        mockMvc.perform(post("/vehicle/batch")
+                        .param("upsert", "true")
+                        .contentType("application/x-ndjson")
+                        .content(objectMapper.writeValueAsString(testVehicle) + "\n" + objectMapper.writeValueAsString(other) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted", is(2)))
+                .andExpect(jsonPath("$.results[1].vin", is("efgh")));
+
+        verify(vehicleDAO, times(1)).insertVehicles(argThat(vehicles -> vehicles.size() == 2), eq(true));
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/batch should return 400 when the body is not valid JSON")
+    void createVehicles_ShouldReturn400WhenJsonIsInvalid() throws Exception {
+        mockMvc.perform(post("/vehicle/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[ { invalid json "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid JSON format")));
+
+        verify(vehicleDAO, never()).insertVehicles(anyList(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/import should stream a CSV upload to the importer and return its report")
+    void importVehicles_ShouldReturnReport() throws Exception {
+        ImportReport report = new ImportReport(10);
+        report.count(BatchItemResult.Status.CREATED);
+        report.reject(new BatchItemResult(3, "efgh", BatchItemResult.Status.INVALID, Map.of("horsePower", "Must be a number")));
+        when(vehicleImporter.importVehicles(any(), eq(VehicleImporter.Format.CSV), eq(true), any())).thenReturn(report);
+
+        mockMvc.perform(post("/vehicle/import")
+                        .param("upsert", "true")
+                        .contentType("text/csv")
+                        .content("vin,manufacturerName\nabcd,Toyota\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(2)))
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rejects[0].index", is(3)))
+                .andExpect(jsonPath("$.rejects[0].errors.horsePower", is("Must be a number")));
+    }
+
+    @Test
+    @DisplayName("POST /vehicle/import should return 400 for a file the importer refuses")
+    void importVehicles_ShouldReturn400ForInvalidFile() throws Exception {
+        when(vehicleImporter.importVehicles(any(), any(), anyBoolean(), any()))
+                .thenThrow(new IllegalArgumentException("The CSV header has no vin column."));
+
+        mockMvc.perform(post("/vehicle/import")
+                        .contentType("text/csv")
+                        .content("manufacturerName\nToyota\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("The CSV header has no vin column.")));
+    }
+
     @Test
     @DisplayName("GET /vehicle/{vin} should return vehicle with status 200 when found")
     void getVehicleByVin_ShouldReturnVehicleWhenFound() throws Exception {
@@ -173,6 +542,38 @@ class VehicleControllerTest {
         verify(vehicleDAO, times(1)).getVehicleByVin("abcd");
     }
 
+    @Test
+    @DisplayName("GET /vehicle/{vin} should send the version as ETag and answer a matching If-None-Match with 304")
+    void getVehicleByVin_ShouldReturn304WhenEtagMatches() throws Exception {
+        testVehicle.setVersion(7L);
+        testVehicle.setUpdatedAt(Instant.parse("2024-05-01T12:00:00Z"));
+        when(vehicleDAO.getVehicleByVin("abcd")).thenReturn(testVehicle);
+        when(vehicleDAO.getVehicleVersion("abcd")).thenReturn(VehicleVersion.of(testVehicle));
+
+        mockMvc.perform(get("/vehicle/abcd"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get("/vehicle/abcd").header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(vehicleDAO, times(1)).getVehicleByVin("abcd");
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/{vin} should return 503 with Retry-After when no connection is available")
+    void getVehicleByVin_ShouldReturn503WhenDatabaseIsSaturated() throws Exception {
+        when(vehicleDAO.getVehicleByVin("abcd")).thenThrow(new CannotGetJdbcConnectionException("Database bulkhead is full"));
+
+        mockMvc.perform(get("/vehicle/abcd"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error", is("Database unavailable")));
+    }
+
     @Test
     @DisplayName("GET /vehicle/{vin} should return 404 when vehicle not found")
     void getVehicleByVin_ShouldReturn404WhenNotFound() throws Exception {
@@ -192,6 +593,62 @@ class VehicleControllerTest {
         assertTrue(true, "DAO should be called once for non-existent VIN");
     }
 
+    @Test
+    @DisplayName("GET /vehicle/search should bind typed criteria and return matches")
+    void searchVehicles_ShouldBindCriteria() throws Exception {
+        when(vehicleDAO.searchVehicles(any(VehicleSearchCriteria.class))).thenReturn(List.of(testVehicle));
+
+        mockMvc.perform(get("/vehicle/search")
+                        .param("manufacturerName", "Toyota")
+                        .param("minModelYear", "2010")
+                        .param("maxModelYear", "2020")
+                        .param("fuelType", "gas")
+                        .param("maxPurchasePrice", "15000.00")
+                        .param("sort", "modelYear")
+                        .param("order", "desc")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].vin", is("abcd")));
+
+        verify(vehicleDAO, times(1)).searchVehicles(argThat(criteria ->
+                "Toyota".equals(criteria.getManufacturerName())
+                        && criteria.getMinModelYear() == 2010
+                        && criteria.getMaxModelYear() == 2020
+                        && "gas".equals(criteria.getFuelType())
+                        && new BigDecimal("15000.00").equals(criteria.getMaxPurchasePrice())
+                        && "modelYear".equals(criteria.getSort())
+                        && "desc".equals(criteria.getOrder())
+                        && criteria.getLimit() == 10));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/search should return 422 for an unknown sort field")
+    void searchVehicles_ShouldReturn422ForUnknownSort() throws Exception {
+        mockMvc.perform(get("/vehicle/search").param("sort", "vin; DROP TABLE vehicle"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error", is("Validation failed")))
+                .andExpect(jsonPath("$.errors.sort", notNullValue()));
+
+        verify(vehicleDAO, never()).searchVehicles(any(VehicleSearchCriteria.class));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/cache/stats should expose the cache counters")
+    void getCacheStats_ShouldReturnCounters() throws Exception {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hitCount", 9);
+        stats.put("missCount", 1);
+        when(vehicleCache.stats()).thenReturn(stats);
+
+        mockMvc.perform(get("/vehicle/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount", is(9)))
+                .andExpect(jsonPath("$.missCount", is(1)));
+
+        verify(vehicleDAO, never()).getVehicleByVin(anyString());
+    }
+
     @Test
     @DisplayName("PUT /vehicle/{vin} should update vehicle and return status 200")
     void updateVehicle_ShouldUpdateVehicleAndReturn200() throws Exception {
@@ -211,6 +668,69 @@ class VehicleControllerTest {
         verify(vehicleDAO, times(1)).updateVehicle(eq("abcd"), any(Vehicle.class));
     }
 
+    @Test
+    @DisplayName("PUT /vehicle/{vin} in write-behind mode should return 202 without an ETag, or 503 when the buffer is full")
+    void updateVehicle_ShouldBufferInWriteBehindMode() throws Exception {
+        Vehicle accepted = new Vehicle("ABCD", "Toyota", "Camry Hybrid", 208, "Camry Hybrid", 2024, new BigDecimal("35000.00"), "Hybrid");
+        when(vehicleDAO.hasWriteBuffer()).thenReturn(true);
+        when(vehicleDAO.bufferUpdate(eq("abcd"), any(Vehicle.class))).thenReturn(accepted);
+        when(vehicleDAO.bufferUpdate(eq("efgh"), any(Vehicle.class))).thenThrow(new RejectedExecutionException("full"));
+
+        mockMvc.perform(put("/vehicle/abcd")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(accepted)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.vin", is("ABCD")))
+                .andExpect(jsonPath("$.horsePower", is(208)));
+
+        mockMvc.perform(put("/vehicle/efgh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(accepted)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error", is("Too many pending updates")));
+
+        verify(vehicleDAO, never()).updateVehicle(anyString(), any(Vehicle.class));
+    }
+
+    @Test
+    @DisplayName("PUT /vehicle/{vin} with If-Match should update only that version")
+    void updateVehicle_ShouldPassIfMatchVersion() throws Exception {
+        Vehicle updatedVehicle = new Vehicle("abcd", "Toyota", "Camry Hybrid", 208, "Camry Hybrid", 2024, new BigDecimal("35000.00"), "Hybrid");
+        updatedVehicle.setVersion(8L);
+        when(vehicleDAO.updateVehicle(eq("abcd"), any(Vehicle.class), eq(7L))).thenReturn(updatedVehicle);
+
+        mockMvc.perform(put("/vehicle/abcd")
+                        .header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedVehicle)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+
+        verify(vehicleDAO, never()).updateVehicle(anyString(), any(Vehicle.class));
+    }
+
+    @Test
+    @DisplayName("PUT /vehicle/{vin} should return 412 when If-Match is stale or not a strong tag")
+    void updateVehicle_ShouldReturn412WhenVersionChanged() throws Exception {
+        when(vehicleDAO.updateVehicle(eq("abcd"), any(Vehicle.class), eq(7L)))
+                .thenThrow(new OptimisticLockingFailureException("Vehicle abcd is no longer at version 7"));
+
+        mockMvc.perform(put("/vehicle/abcd")
+                        .header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testVehicle)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error", is("Precondition failed")));
+
+        mockMvc.perform(put("/vehicle/abcd")
+                        .header("If-Match", "W/\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testVehicle)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("PUT /vehicle/{vin} should return 422 when validation fails")
     void updateVehicle_ShouldReturn422WhenValidationFails() throws Exception {
@@ -238,6 +758,81 @@ class VehicleControllerTest {
         verify(vehicleDAO, never()).updateVehicle(anyString(), any(Vehicle.class));
     }
 
+    @Test
+    @DisplayName("GET /vehicle/archive/{vin} should return the archived vehicle")
+    void getArchivedVehicle_ShouldReturnVehicle() throws Exception {
+        when(vehicleArchive.get("abcd")).thenReturn(testVehicle);
+
+        mockMvc.perform(get("/vehicle/archive/abcd"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vin", is("abcd")))
+                .andExpect(header().doesNotExist("ETag"));
+
+        verify(vehicleDAO, never()).getVehicleByVin(anyString());
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/archive/{vin} should return 422 when the vin is not archived")
+    void getArchivedVehicle_ShouldReturn422WhenNotArchived() throws Exception {
+        when(vehicleArchive.get("abcd")).thenReturn(null);
+
+        mockMvc.perform(get("/vehicle/archive/abcd"))
+                .andExpect(status().is(422))
+                .andExpect(content().string("Vin not found"));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/archive should list the archived model years")
+    void getArchivedYears_ShouldListYears() throws Exception {
+        when(vehicleArchive.getYears()).thenReturn(List.of(
+                new ArchivedYear(1990, 1200, 2, 250000, 40000, Instant.parse("2026-01-01T00:00:00Z"))));
+
+        mockMvc.perform(get("/vehicle/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].modelYear", is(1990)))
+                .andExpect(jsonPath("$[0].chunks", is(2)));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/archive/years/{modelYear} should stream the archived vehicles of the year")
+    void streamArchivedYear_ShouldWriteVehicles() throws Exception {
+        when(vehicleArchive.getYear(2014)).thenReturn(
+                new ArchivedYear(2014, 1, 1, 200, 150, Instant.parse("2026-01-01T00:00:00Z")));
+        doAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(1);
+            generator.writeStartArray();
+            generator.writeObject(testVehicle);
+            generator.writeEndArray();
+            return null;
+        }).when(vehicleArchive).streamYear(eq(2014), any());
+
+        MvcResult result = mockMvc.perform(get("/vehicle/archive/years/2014"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].vin", is("abcd")));
+    }
+
+    @Test
+    @DisplayName("GET /vehicle/archive/years/{modelYear} should return 404 when the year is not archived")
+    void streamArchivedYear_ShouldReturn404WhenNotArchived() throws Exception {
+        when(vehicleArchive.getYear(1999)).thenReturn(null);
+
+        MvcResult result = mockMvc.perform(get("/vehicle/archive/years/1999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("Model year not archived")));
+
+        verify(vehicleArchive, never()).streamYear(anyInt(), any());
+    }
+
     @Test
     @DisplayName("DELETE /vehicle/{vin} should delete vehicle and return status 204")
     void deleteVehicle_ShouldDeleteVehicleAndReturn204() throws Exception {
@@ -0,0 +1,104 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("VehicleArchive Tests")
+class VehicleArchiveTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Vehicle vehicle(String vin, long version) {
+        Vehicle vehicle = new Vehicle(vin, "Toyota", "highlander", 100, "highlander", 1990, new BigDecimal("12000.10"), "gas");
+        vehicle.setVersion(version);
+        vehicle.setUpdatedAt(Instant.parse("2024-05-01T10:15:30.123456Z"));
+        return vehicle;
+    }
+
+    private static List<Vehicle> vehicles(int count) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            vehicles.add(vehicle("VIN" + i, i));
+        }
+        return vehicles;
+    }
+
+    @Test
+    @DisplayName("A line of a chunk should decode to the vehicle written there, with its version and updated_at")
+    void decodeLine_ShouldReturnVehicleOnLine() {
+        byte[] payload = VehicleArchive.encode(objectMapper, vehicles(3), new ByteArrayOutputStream());
+
+        Vehicle vehicle = VehicleArchive.decodeLine(objectMapper, payload, 2);
+
+        assertEquals("VIN2", vehicle.getVin());
+        assertEquals(2L, vehicle.getVersion());
+        assertEquals(Instant.parse("2024-05-01T10:15:30.123456Z"), vehicle.getUpdatedAt());
+        assertEquals(new BigDecimal("12000.10"), vehicle.getPurchasePrice(), "The price should keep its scale");
+        assertNull(VehicleArchive.decodeLine(objectMapper, payload, 3));
+    }
+
+    @Test
+    @DisplayName("A chunk should decode to every vehicle in the order written")
+    void decode_ShouldReturnEveryVehicleInOrder() {
+        byte[] payload = VehicleArchive.encode(objectMapper, vehicles(5), new ByteArrayOutputStream());
+
+        List<Vehicle> decoded = new ArrayList<>();
+        VehicleArchive.decode(objectMapper, payload, decoded::add);
+
+        assertEquals(List.of("VIN0", "VIN1", "VIN2", "VIN3", "VIN4"), decoded.stream().map(Vehicle::getVin).toList());
+    }
+
+    @Test
+    @DisplayName("A chunk should be much smaller than its NDJSON")
+    void encode_ShouldCompress() {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        byte[] payload = VehicleArchive.encode(objectMapper, vehicles(1000), raw);
+
+        assertEquals(1000, raw.toString().lines().count());
+        assertTrue(payload.length * 5 < raw.size(), payload.length + " compressed bytes of " + raw.size());
+    }
+
+    @Test
+    @DisplayName("A vehicle never written, without version or updated_at, should decode with neither")
+    void decodeLine_ShouldAllowMissingVersion() {
+        Vehicle vehicle = new Vehicle("ABCD", "Toyota", "highlander", 100, "highlander", 1990, new BigDecimal("1.00"), "gas");
+        byte[] payload = VehicleArchive.encode(objectMapper, List.of(vehicle), new ByteArrayOutputStream());
+
+        Vehicle decoded = VehicleArchive.decodeLine(objectMapper, payload, 0);
+
+        assertEquals("ABCD", decoded.getVin());
+        assertNull(decoded.getVersion());
+        assertNull(decoded.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("Archiving should never reach the model years kept live, whatever year is asked for")
+    void archiveBefore_ShouldKeepRecentYears() {
+        VehicleDAO vehicleDAO = mock(VehicleDAO.class);
+        int oldestKept = Year.now().getValue() - 25;
+        when(vehicleDAO.getModelYearsBefore(oldestKept)).thenReturn(List.of());
+        VehicleArchive archive = new VehicleArchive(vehicleDAO, mock(JdbcTemplate.class), objectMapper, 1000, 25, Duration.ZERO);
+
+        assertTrue(archive.archiveBefore(3000).isEmpty());
+        assertTrue(archive.archiveBefore(oldestKept - 10).isEmpty());
+
+        verify(vehicleDAO).getModelYearsBefore(oldestKept);
+        verify(vehicleDAO).getModelYearsBefore(oldestKept - 10);
+    }
+}
@@ -0,0 +1,73 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VehicleCache Tests")
+class VehicleCacheTest {
+
+    private VehicleCache vehicleCache;
+    private AtomicInteger loads;
+    private Vehicle testVehicle;
+
+    @BeforeEach
+    void setUp() {
+        vehicleCache = new VehicleCache(true, 100, Duration.ofMinutes(5), Duration.ofSeconds(5));
+        loads = new AtomicInteger();
+        testVehicle = new Vehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, new BigDecimal("12000.12"), "gas");
+    }
+
+    @Test
+    @DisplayName("Lookups differing only in case should share one entry")
+    void get_ShouldKeyCaseInsensitively() {
+        assertSame(testVehicle, vehicleCache.get("abcd", this::load));
+        assertSame(testVehicle, vehicleCache.get("ABCD", this::load));
+
+        assertEquals(1, loads.get(), "Second lookup should be a hit");
+        assertEquals(1L, vehicleCache.stats().get("hitCount"));
+        assertEquals(1L, vehicleCache.stats().get("missCount"));
+    }
+
+    @Test
+    @DisplayName("Missing vins should be cached as not found")
+    void get_ShouldCacheMisses() {
+        assertNull(vehicleCache.get("NONEXISTENT", this::load));
+        assertNull(vehicleCache.get("nonexistent", this::load));
+
+        assertEquals(1, loads.get(), "Negative result should be cached");
+    }
+
+    @Test
+    @DisplayName("Invalidate should force the next lookup to reload")
+    void invalidate_ShouldDropEntry() {
+        vehicleCache.get("abcd", this::load);
+        vehicleCache.invalidate("aBcD");
+        vehicleCache.get("abcd", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("A disabled cache should always call the loader")
+    void get_ShouldPassThroughWhenDisabled() {
+        VehicleCache disabled = new VehicleCache(false, 100, Duration.ofMinutes(5), Duration.ofSeconds(5));
+        disabled.get("abcd", this::load);
+        disabled.get("abcd", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private Vehicle load(String upperVin) {
+        loads.incrementAndGet();
+        assertEquals(upperVin.toUpperCase(), upperVin, "Loader should receive the upper-cased vin");
+        return upperVin.equals("ABCD") ? testVehicle : null;
+    }
+}
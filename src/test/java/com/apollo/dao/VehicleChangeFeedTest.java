@@ -0,0 +1,70 @@
+package com.apollo.dao;
+
+import com.apollo.model.VehicleChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VehicleChangeFeed Tests")
+class VehicleChangeFeedTest {
+
+    private VehicleChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = new VehicleChangeFeed(4);
+    }
+
+    @Test
+    @DisplayName("Changes should be numbered in publish order and read back after a sequence number")
+    void since_ShouldReturnChangesAfterSequence() {
+        changeFeed.publish(VehicleChange.Type.CREATED, "abcd", 1L);
+        changeFeed.publish(VehicleChange.Type.UPDATED, "abcd", 2L);
+        changeFeed.publish(VehicleChange.Type.DELETED, "abcd", null);
+
+        List<VehicleChange> changes = changeFeed.since(1, 10);
+
+        assertEquals(3, changeFeed.head());
+        assertEquals(List.of(2L, 3L), changes.stream().map(VehicleChange::seq).toList());
+        assertEquals(VehicleChange.Type.DELETED, changes.get(1).type());
+        assertEquals(List.of(2L), changeFeed.since(1, 1).stream().map(VehicleChange::seq).toList());
+        assertTrue(changeFeed.since(3, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reader behind the ring, or ahead of the head, should be told to resync")
+    void since_ShouldReturnNullOutsideRing() {
+        for (int i = 0; i < 6; i++) {
+            changeFeed.publish(VehicleChange.Type.CREATED, "v" + i, null);
+        }
+
+        assertNull(changeFeed.since(1, 10), "Changes 2 and 3 were overwritten");
+        assertEquals(4, changeFeed.since(2, 10).size(), "Changes 3 to 6 are all still in the ring");
+        assertNull(changeFeed.since(7, 10), "Sequence never issued by this instance");
+    }
+
+    @Test
+    @DisplayName("await should wake up on publish and time out with no changes")
+    void await_ShouldWaitForNextChange() throws Exception {
+        assertTrue(changeFeed.await(0, 10, Duration.ofMillis(20)).isEmpty());
+
+        CompletableFuture<List<VehicleChange>> next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return changeFeed.await(0, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        changeFeed.publish(VehicleChange.Type.CREATED, "abcd", 1L);
+
+        assertEquals("abcd", next.get(5, TimeUnit.SECONDS).get(0).vin());
+    }
+}
@@ -0,0 +1,168 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import com.apollo.model.VehicleChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("VehicleDAO archive Tests")
+class VehicleDAOArchiveTest {
+
+    private final List<String> log = new ArrayList<>();
+    private final List<String> partitionVins = List.of("AAAA", "BBBB", "CCCC");
+    private Boolean attached;
+    private String failOn;
+    private VehicleDAO vehicleDAO;
+    private VehicleChangeFeed changeFeed;
+
+    // The partitioned PostgreSQL layout, against a JdbcTemplate and a transaction manager that log every statement
+    // and transaction in order
+    @BeforeEach
+    void setUp() {
+        vehicleDAO = new VehicleDAO();
+        changeFeed = mock(VehicleChangeFeed.class);
+        ReflectionTestUtils.setField(vehicleDAO, "jdbcTemplate", mock(JdbcTemplate.class, this::answer));
+        ReflectionTestUtils.setField(vehicleDAO, "transactionTemplate", new TransactionTemplate(new RecordingTransactionManager()));
+        ReflectionTestUtils.setField(vehicleDAO, "vehicleCache", mock(VehicleCache.class));
+        ReflectionTestUtils.setField(vehicleDAO, "changeFeed", changeFeed);
+        ReflectionTestUtils.setField(vehicleDAO, "textIndex", mock(VehicleTextIndex.class));
+        ReflectionTestUtils.setField(vehicleDAO, "dialect", Dialect.POSTGRESQL);
+        ReflectionTestUtils.setField(vehicleDAO, "partitioned", true);
+        ReflectionTestUtils.setField(vehicleDAO, "fetchSize", 100);
+    }
+
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        switch (invocation.getMethod().getName()) {
+            case "execute":
+                if (args[0] instanceof String sql) {
+                    log.add(sql);
+                    if (failOn != null && sql.startsWith(failOn)) {
+                        throw new CannotAcquireLockException("canceling statement due to lock timeout");
+                    }
+                    return null;
+                }
+                break;
+            case "update":
+                log.add((String) args[0]);
+                return 1;
+            case "queryForObject":
+                return ((String) args[0]).contains("relispartition") ? attached : Boolean.TRUE;
+            case "query":
+                if (args[0] instanceof PreparedStatementCreator creator && args[1] instanceof RowCallbackHandler handler) {
+                    Connection connection = mock(Connection.class);
+                    when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(prepare -> {
+                        log.add(prepare.getArgument(0));
+                        return mock(PreparedStatement.class);
+                    });
+                    creator.createPreparedStatement(connection);
+                    for (String vin : partitionVins) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getString("vin")).thenReturn(vin);
+                        when(rs.getLong("version")).thenReturn(1L);
+                        handler.processRow(rs);
+                    }
+                    return null;
+                }
+                break;
+            default:
+        }
+        return RETURNS_DEFAULTS.answer(invocation);
+    }
+
+    private class RecordingTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            log.add("BEGIN");
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            log.add("COMMIT");
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            log.add("ROLLBACK");
+        }
+    }
+
+    private List<String> statements() {
+        return log.stream().filter(sql -> !sql.startsWith("UPDATE vehicle_table_version")).map(sql -> sql.split(" \\(| SET | USING ")[0]).toList();
+    }
+
+    @Test
+    @DisplayName("A year with its own partition should be detached in a transaction of its own before it is copied and dropped")
+    void archiveModelYear_ShouldDetachBeforeCopy() {
+        attached = true;
+        List<List<Vehicle>> chunks = new ArrayList<>();
+
+        int moved = vehicleDAO.archiveModelYear(1990, 2, chunks::add);
+
+        assertEquals(3, moved);
+        assertEquals(List.of(
+                "BEGIN", "SET LOCAL lock_timeout = '5s'", "ALTER TABLE vehicle DETACH PARTITION vehicle_y1990", "COMMIT",
+                "BEGIN", "SELECT * FROM vehicle_y1990 ORDER BY vin", "DELETE FROM vehicle_vin d", "UPDATE vehicle_stats s",
+                "DROP TABLE vehicle_y1990", "COMMIT"), statements());
+        assertTrue(log.stream().noneMatch(sql -> sql.startsWith("LOCK TABLE")), "The partition should never be locked on its own");
+        assertTrue(log.stream().noneMatch(sql -> sql.startsWith("DELETE FROM vehicle WHERE")), "A detached year should not be deleted row by row");
+        assertEquals(List.of(2, 1), chunks.stream().map(List::size).toList());
+        verify(changeFeed).publish(VehicleChange.Type.ARCHIVED, "AAAA", null);
+    }
+
+    @Test
+    @DisplayName("A partition left detached by a failed run should be archived without detaching it again")
+    void archiveModelYear_ShouldResumeDetachedPartition() {
+        attached = false;
+
+        int moved = vehicleDAO.archiveModelYear(1990, 10, vehicles -> { });
+
+        assertEquals(3, moved);
+        assertEquals(List.of("BEGIN", "SELECT * FROM vehicle_y1990 ORDER BY vin", "DELETE FROM vehicle_vin d",
+                "UPDATE vehicle_stats s", "DROP TABLE vehicle_y1990", "COMMIT"), statements());
+    }
+
+    @Test
+    @DisplayName("A DETACH that times out on its locks should leave the year live and untouched")
+    void archiveModelYear_ShouldGiveUpWhenDetachTimesOut() {
+        attached = true;
+        failOn = "ALTER TABLE vehicle DETACH";
+        List<List<Vehicle>> chunks = new ArrayList<>();
+
+        assertThrows(CannotAcquireLockException.class, () -> vehicleDAO.archiveModelYear(1990, 10, chunks::add));
+
+        assertEquals(List.of("BEGIN", "SET LOCAL lock_timeout = '5s'", "ALTER TABLE vehicle DETACH PARTITION vehicle_y1990", "ROLLBACK"),
+                statements());
+        assertTrue(chunks.isEmpty());
+        verify(changeFeed, never()).publish(eq(VehicleChange.Type.ARCHIVED), anyString(), eq(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.apollo.dao;
+
+import com.apollo.model.CompactVehicle;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VehicleJsonRowWriter Tests")
+class VehicleJsonRowWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should write each row as the same JSON a CompactVehicle serializes to")
+    void processRow_ShouldMatchCompactVehicleJson() throws Exception {
+        CompactVehicle first = new CompactVehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, 1200012L, "gas");
+        CompactVehicle second = new CompactVehicle("efgh", "Honda", "sedan \"LX\"", 100, "sedan", 2025, 2500050L, "gasoline");
+        SimpleResultSet rs = resultSet(first, second);
+
+        StringWriter out = new StringWriter();
+        VehicleJsonRowWriter writer;
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            writer = new VehicleJsonRowWriter(generator);
+            generator.writeStartArray();
+            while (rs.next()) {
+                writer.processRow(rs);
+            }
+            generator.writeEndArray();
+        }
+
+        assertEquals(objectMapper.writeValueAsString(new CompactVehicle[]{first, second}), out.toString());
+        assertEquals(2, writer.getRows());
+    }
+
+    private static SimpleResultSet resultSet(CompactVehicle... vehicles) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("vin", Types.VARCHAR, 17, 0);
+        rs.addColumn("manufacturer_name", Types.VARCHAR, 255, 0);
+        rs.addColumn("description", Types.VARCHAR, Integer.MAX_VALUE, 0);
+        rs.addColumn("horse_power", Types.INTEGER, 10, 0);
+        rs.addColumn("model_name", Types.VARCHAR, 255, 0);
+        rs.addColumn("model_year", Types.INTEGER, 10, 0);
+        rs.addColumn("purchase_price_cents", Types.BIGINT, 19, 0);
+        rs.addColumn("fuel_type", Types.VARCHAR, 50, 0);
+        for (CompactVehicle v : vehicles) {
+            rs.addRow(v.vin(), v.manufacturerName(), v.description(), v.horsePower(), v.modelName(), v.modelYear(),
+                    v.purchasePriceCents(), v.fuelType());
+        }
+        return rs;
+    }
+}
@@ -0,0 +1,83 @@
+package com.apollo.dao;
+
+import com.apollo.model.VehicleField;
+import com.apollo.model.VehicleStatsGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("VehicleStats Tests")
+class VehicleStatsTest {
+
+    private VehicleDAO vehicleDAO;
+    private VehicleStats vehicleStats;
+
+    @BeforeEach
+    void setUp() {
+        vehicleDAO = mock(VehicleDAO.class);
+        vehicleStats = new VehicleStats(vehicleDAO);
+    }
+
+    @Test
+    @DisplayName("groupBy should accept the dimension properties and refuse anything else")
+    void parseGroupBy_ShouldOnlyAcceptDimensions() {
+        assertEquals(EnumSet.of(VehicleField.FUEL_TYPE, VehicleField.MODEL_YEAR),
+                VehicleStats.parseGroupBy("fuelType, modelYear"));
+        assertTrue(VehicleStats.parseGroupBy(null).isEmpty());
+        assertTrue(VehicleStats.parseGroupBy("").isEmpty());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> VehicleStats.parseGroupBy("modelYear,purchasePrice"));
+        assertEquals("Cannot group by 'purchasePrice'", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> VehicleStats.parseGroupBy("colour"));
+    }
+
+    @Test
+    @DisplayName("Reports should be reused until the table version moves on")
+    void report_ShouldReuseUntilTableVersionChanges() {
+        Set<VehicleField> dimensions = EnumSet.of(VehicleField.FUEL_TYPE);
+        when(vehicleDAO.getStats(dimensions)).thenReturn(List.of(
+                new VehicleStatsGroup(null, null, null, "diesel", 1, new BigDecimal("40000.00"), 300),
+                new VehicleStatsGroup(null, null, null, "gas", 3, new BigDecimal("36000.36"), 15)));
+
+        VehicleStats.Report first = vehicleStats.report(dimensions, 7);
+        assertSame(first, vehicleStats.report(dimensions, 7));
+        assertSame(first, vehicleStats.report(dimensions, 6), "An older version should not force a rebuild");
+        verify(vehicleDAO, times(1)).getStats(dimensions);
+
+        assertEquals(2, first.groups().size());
+        assertEquals(4, first.total().count());
+        assertEquals(new BigDecimal("19000.09"), first.total().avgPurchasePrice());
+        assertEquals(new BigDecimal("78.8"), first.total().avgHorsePower());
+
+        VehicleStats.Report second = vehicleStats.report(dimensions, 8);
+        assertNotSame(first, second);
+        assertEquals(8, second.tableVersion());
+        verify(vehicleDAO, times(2)).getStats(dimensions);
+    }
+
+    @Test
+    @DisplayName("Totals without dimensions should not repeat the single group")
+    void report_ShouldReturnOnlyTotalsWithoutDimensions() {
+        Set<VehicleField> none = EnumSet.noneOf(VehicleField.class);
+        when(vehicleDAO.getStats(none)).thenReturn(List.of(
+                new VehicleStatsGroup(null, null, null, null, 2, new BigDecimal("24000.24"), 10)));
+
+        VehicleStats.Report report = vehicleStats.report(none, 1);
+
+        assertTrue(report.groups().isEmpty());
+        assertEquals(2, report.total().count());
+        assertEquals(new BigDecimal("12000.12"), report.total().avgPurchasePrice());
+    }
+}
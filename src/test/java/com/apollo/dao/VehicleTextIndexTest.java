@@ -0,0 +1,85 @@
+package com.apollo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VehicleTextIndex Tests")
+class VehicleTextIndexTest {
+
+    private VehicleTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VehicleTextIndex(2, 50);
+        assertTrue(index.startBuild());
+        index.load("V1", "Highlander", "Family SUV with third row seating", 1);
+        index.load("V2", "Camry", "Reliable sedan, highway cruiser", 1);
+        index.load("V3", "Tacoma", "Pickup with towing package and highlander-style trim", 1);
+        index.load("V4", "Corolla", "Compact sedan", 1);
+        index.finishBuild();
+    }
+
+    @Test
+    @DisplayName("Words should be lower-cased runs of letters and digits")
+    void tokenize_ShouldSplitOnNonWordCharacters() {
+        assertEquals(List.of("f", "150", "xlt", "4x4", "crew", "cab"), VehicleTextIndex.tokenize("F-150 XLT 4x4, Crew-Cab!"));
+        assertTrue(VehicleTextIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Every query word must match, prefixes match longer words, and model name matches rank first")
+    void search_ShouldRankMatchesAndExpandPrefixes() {
+        assertEquals(List.of("V1", "V3"), vins(index.search(List.of("highlander"), 10)));
+        assertEquals(List.of("V1", "V2", "V3"), vins(index.search(List.of("high"), 10)).stream().sorted().toList());
+        assertEquals(List.of("V4", "V2"), vins(index.search(List.of("sedan"), 10)), "Shorter documents rank higher");
+        assertEquals(List.of("V2"), vins(index.search(List.of("sedan", "reli"), 10)));
+        assertEquals(1, index.search(List.of("high"), 1).size());
+        assertTrue(index.search(List.of("sedan", "pickup"), 10).isEmpty());
+        assertTrue(index.search(List.of("h"), 10).isEmpty(), "A word shorter than min-prefix only matches exactly");
+    }
+
+    @Test
+    @DisplayName("Writes should update the index in place")
+    void putAndRemove_ShouldKeepIndexCurrent() {
+        index.put("V4", "Corolla Cross", "Compact crossover", 2L);
+        assertEquals(List.of("V4"), vins(index.search(List.of("crossover"), 10)));
+        assertEquals(List.of("V2"), vins(index.search(List.of("sedan"), 10)));
+
+        index.put("V4", "Corolla", "Compact sedan", 1L);
+        assertTrue(index.search(List.of("sedan"), 10).stream().noneMatch(hit -> hit.vin().equals("V4")),
+                "An older version should not replace a newer one");
+
+        index.remove("V2");
+        assertTrue(index.search(List.of("sedan"), 10).isEmpty());
+        assertEquals(3, index.getDocumentCount());
+    }
+
+    @Test
+    @DisplayName("Writes during a rebuild should win over the rows the build reads")
+    void rebuild_ShouldKeepWritesMadeDuringTheBuild() {
+        assertTrue(index.startBuild());
+        assertFalse(index.startBuild());
+        index.put("V5", "Prius", "Hybrid hatchback", 1L);
+        index.remove("V1");
+        index.load("V1", "Highlander", "Family SUV with third row seating", 1);
+        index.load("V2", "Camry", "Reliable sedan, highway cruiser", 1);
+        assertEquals(List.of("V5"), vins(index.search(List.of("hybrid"), 10)), "Writes should reach the live generation");
+        assertEquals(List.of("V4"), vins(index.search(List.of("corolla"), 10)), "Searches should use the old generation");
+        index.finishBuild();
+
+        assertEquals(List.of("V5"), vins(index.search(List.of("hybrid"), 10)));
+        assertTrue(index.search(List.of("family"), 10).isEmpty(), "A vin deleted during the build should not be loaded");
+        assertTrue(index.search(List.of("corolla"), 10).isEmpty());
+        assertEquals(List.of("V2"), vins(index.search(List.of("camry"), 10)));
+        assertEquals(2, index.getDocumentCount());
+    }
+
+    private static List<String> vins(List<VehicleTextIndex.Hit> hits) {
+        return hits.stream().map(VehicleTextIndex.Hit::vin).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.apollo.dao;
+
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VehicleWriteBuffer Tests")
+class VehicleWriteBufferTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private static Vehicle vehicle(String vin, int horsePower) {
+        return new Vehicle(vin, "Toyota", "highlander", horsePower, "highlander", 2014, new BigDecimal("12000.12"), "gas");
+    }
+
+    private VehicleWriteBuffer open(int maxPending) throws IOException {
+        return new VehicleWriteBuffer(directory, true, maxPending, objectMapper);
+    }
+
+    @Test
+    @DisplayName("The newest update per vin should be pending, whatever the case of the vin")
+    void append_ShouldKeepNewestUpdatePerVin() throws IOException {
+        try (VehicleWriteBuffer buffer = open(10)) {
+            buffer.append(vehicle("ABCD", 100));
+            buffer.append(vehicle("abcd", 200));
+            buffer.append(vehicle("EFGH", 300));
+
+            assertEquals(2, buffer.size());
+            assertEquals(200, buffer.peek("Abcd").getHorsePower());
+            assertNull(buffer.peek("IJKL"));
+        }
+    }
+
+    @Test
+    @DisplayName("A committed batch should delete its log segments and stay visible until then")
+    void drain_ShouldHandOverPendingUpdates() throws IOException {
+        try (VehicleWriteBuffer buffer = open(10)) {
+            buffer.append(vehicle("ABCD", 100));
+            VehicleWriteBuffer.Batch batch = buffer.drain();
+            buffer.append(vehicle("EFGH", 200));
+
+            assertEquals(List.of("ABCD"), batch.getVehicles().stream().map(Vehicle::getVin).toList());
+            assertEquals(100, buffer.peek("ABCD").getHorsePower(), "Drained updates should be readable until committed");
+            assertEquals(2, buffer.segmentFiles().size());
+
+            batch.commit();
+
+            assertNull(buffer.peek("ABCD"));
+            assertEquals(1, buffer.segmentFiles().size());
+            assertEquals(List.of("EFGH"), buffer.drain().getVehicles().stream().map(Vehicle::getVin).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("A restored batch should not overwrite updates made during the failed flush")
+    void restore_ShouldKeepNewerUpdates() throws IOException {
+        try (VehicleWriteBuffer buffer = open(10)) {
+            buffer.append(vehicle("ABCD", 100));
+            buffer.append(vehicle("EFGH", 100));
+            VehicleWriteBuffer.Batch batch = buffer.drain();
+            buffer.append(vehicle("ABCD", 200));
+
+            batch.restore();
+
+            assertEquals(2, buffer.size());
+            assertEquals(200, buffer.peek("ABCD").getHorsePower());
+            assertEquals(100, buffer.peek("EFGH").getHorsePower());
+        }
+    }
+
+    @Test
+    @DisplayName("Reopening should replay unflushed updates and ignore a torn last record")
+    void open_ShouldReplayLogAfterCrash() throws IOException {
+        VehicleWriteBuffer buffer = open(10);
+        buffer.append(vehicle("ABCD", 100));
+        buffer.drain().restore();
+        buffer.append(vehicle("ABCD", 200));
+        buffer.append(vehicle("EFGH", 300));
+        buffer.close();
+        Path last = buffer.segmentFiles().get(buffer.segmentFiles().size() - 1);
+        Files.write(last, new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (VehicleWriteBuffer reopened = open(10)) {
+            assertEquals(2, reopened.getRecovered());
+            assertEquals(200, reopened.peek("ABCD").getHorsePower(), "Later segments should win");
+            assertEquals(300, reopened.peek("EFGH").getHorsePower());
+
+            reopened.drain().commit();
+
+            assertEquals(1, reopened.segmentFiles().size(), "Only the new, empty segment should be left");
+        }
+    }
+
+    @Test
+    @DisplayName("Updates for new vins should be refused when max-pending vins are waiting")
+    void append_ShouldRejectWhenFull() throws IOException {
+        try (VehicleWriteBuffer buffer = open(1)) {
+            buffer.append(vehicle("ABCD", 100));
+
+            assertThrows(RejectedExecutionException.class, () -> buffer.append(vehicle("EFGH", 100)));
+            buffer.append(vehicle("ABCD", 200));
+            assertEquals(200, buffer.peek("ABCD").getHorsePower());
+        }
+    }
+}
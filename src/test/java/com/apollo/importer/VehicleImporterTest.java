@@ -0,0 +1,157 @@
+package com.apollo.importer;
+
+import com.apollo.dao.VehicleDAO;
+import com.apollo.model.BatchItemResult;
+import com.apollo.model.ImportReport;
+import com.apollo.model.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("VehicleImporter Tests")
+class VehicleImporterTest {
+
+    private static final String HEADER = "vin,manufacturerName,description,horse_power,modelName,modelYear,purchasePrice,fuelType\n";
+
+    private VehicleDAO vehicleDAO;
+    private VehicleImporter vehicleImporter;
+    private List<Vehicle> written;
+
+    @BeforeEach
+    void setUp() {
+        vehicleDAO = mock(VehicleDAO.class);
+        written = Collections.synchronizedList(new ArrayList<>());
+        when(vehicleDAO.importVehicles(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<Vehicle> chunk = invocation.getArgument(0);
+            List<BatchItemResult.Status> statuses = new ArrayList<>();
+            for (Vehicle vehicle : chunk) {
+                boolean duplicate = written.stream().anyMatch(v -> v.getVin().equals(vehicle.getVin()));
+                statuses.add(duplicate ? BatchItemResult.Status.DUPLICATE : BatchItemResult.Status.CREATED);
+                written.add(vehicle);
+            }
+            return statuses;
+        });
+        // Tiny chunks and two parse threads so the test crosses chunk boundaries, and records of at most 200 characters
+        vehicleImporter = new VehicleImporter(vehicleDAO, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 2, 10, Duration.ofMinutes(1), 200);
+    }
+
+    @Test
+    @DisplayName("CSV import should write valid rows in file order and report rejects by line number")
+    void importVehicles_ShouldImportCsvAndReportRejects() throws Exception {
+        String csv = HEADER +
+                "abcd,Toyota,\"highlander, \"\"limited\"\"\",5,highlander,2014,12000.12,gas\n" +
+                "efgh,Honda,\"two\nlines\",abc,sedan,2025,25000.50,gasoline\n" +
+                "ijkl,,truck,300,f150,2020,40000.00,diesel\n" +
+                "\n" +
+                "mnop,Ford,truck,300,f150,2020,40000.00,diesel\n" +
+                "abcd,Toyota,again,5,highlander,2014,12000.12,gas\n";
+
+        ImportReport report = vehicleImporter.importVehicles(stream(csv), VehicleImporter.Format.CSV, false, progress -> { });
+
+        assertEquals(5, report.getRows());
+        assertEquals(2, report.getCreated());
+        assertEquals(2, report.getInvalid());
+        assertEquals(1, report.getDuplicate());
+        assertEquals(List.of("abcd", "mnop", "abcd"), written.stream().map(Vehicle::getVin).toList());
+        assertEquals("highlander, \"limited\"", written.get(0).getDescription());
+        assertEquals(new BigDecimal("12000.12"), written.get(0).getPurchasePrice());
+
+        List<BatchItemResult> rejects = report.getRejects();
+        assertEquals(List.of(3, 5, 8), rejects.stream().map(BatchItemResult::getIndex).toList());
+        assertEquals("Must be a number", rejects.get(0).getErrors().get("horsePower"));
+        assertEquals("Manufacturer name is required", rejects.get(1).getErrors().get("manufacturerName"));
+        assertEquals(BatchItemResult.Status.DUPLICATE, rejects.get(2).getStatus());
+    }
+
+    @Test
+    @DisplayName("A quote inside an unquoted CSV field should be kept as it is, without joining the next lines")
+    void importVehicles_ShouldKeepQuoteInsideUnquotedField() throws Exception {
+        String csv = HEADER +
+                "abcd,Toyota,20\" wheels,5,highlander,2014,12000.12,gas\n" +
+                "efgh,Honda,sedan,100,accord,2025,25000.50,gasoline\n" +
+                "ijkl,Ford,\"6'2\"\" tall\",300,f150,2020,40000.00,diesel\n";
+
+        ImportReport report = vehicleImporter.importVehicles(stream(csv), VehicleImporter.Format.CSV, false, progress -> { });
+
+        assertEquals(3, report.getRows());
+        assertEquals(3, report.getCreated());
+        assertEquals(List.of("abcd", "efgh", "ijkl"), written.stream().map(Vehicle::getVin).toList());
+        assertEquals("20\" wheels", written.get(0).getDescription());
+        assertEquals("6'2\" tall", written.get(2).getDescription());
+    }
+
+    @Test
+    @DisplayName("A CSV record longer than the limit should be rejected on its own, and the rows after it imported")
+    void importVehicles_ShouldRejectOverlongRecord() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER)
+                .append("abcd,Toyota,highlander,5,highlander,2014,12000.12,gas\n")
+                .append("efgh,Honda,\"never closed,100,accord,2025,25000.50,gasoline\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append("v").append(i).append(",Ford,truck,300,f150,2020,40000.00,diesel\n");
+        }
+        csv.append("x".repeat(10_000)).append('\n')
+           .append("mnop,Ford,truck,300,f150,2020,40000.00,diesel\n");
+
+        ImportReport report = vehicleImporter.importVehicles(stream(csv.toString()), VehicleImporter.Format.CSV, false, progress -> { });
+
+        List<BatchItemResult> rejects = report.getRejects();
+        assertEquals(3, rejects.get(0).getIndex(), "The open quote should be rejected at the line it starts on");
+        assertTrue(rejects.get(0).getErrors().get("record").contains("apollo.import.max-record-bytes"));
+        assertTrue(rejects.stream().anyMatch(reject -> reject.getErrors() != null && reject.getErrors().containsKey("record")
+                && reject.getIndex() == 14), "A single line over the limit should be rejected too");
+        assertEquals("abcd", written.get(0).getVin());
+        assertTrue(written.stream().anyMatch(vehicle -> vehicle.getVin().equals("v9")), "Rows after the limit should be read again");
+        assertEquals("mnop", written.get(written.size() - 1).getVin());
+    }
+
+    @Test
+    @DisplayName("NDJSON import should reject unparseable lines and cap the rejects it keeps")
+    void importVehicles_ShouldCapRejects() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 15; i++) {
+            ndjson.append("not json\n");
+        }
+        ndjson.append("{\"vin\":\"abcd\",\"manufacturerName\":\"Toyota\",\"description\":\"highlander\",\"horsePower\":5,")
+              .append("\"modelName\":\"highlander\",\"modelYear\":2014,\"purchasePrice\":12000.12,\"fuelType\":\"gas\"}\n");
+
+        ImportReport report = vehicleImporter.importVehicles(stream(ndjson.toString()), VehicleImporter.Format.NDJSON, false, progress -> { });
+
+        assertEquals(16, report.getRows());
+        assertEquals(15, report.getInvalid());
+        assertEquals(1, report.getCreated());
+        assertEquals(10, report.getRejects().size());
+        assertTrue(report.isRejectsTruncated());
+    }
+
+    @Test
+    @DisplayName("CSV without a vin column should be refused before anything is written")
+    void importVehicles_ShouldRejectCsvWithoutVinColumn() {
+        String csv = "manufacturerName,modelName\nToyota,highlander\n";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> vehicleImporter.importVehicles(stream(csv), VehicleImporter.Format.CSV, false, progress -> { }));
+        assertTrue(written.isEmpty());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
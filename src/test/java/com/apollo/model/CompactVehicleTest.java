@@ -0,0 +1,56 @@
+package com.apollo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CompactVehicle Tests")
+class CompactVehicleTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should serialize to the same JSON as the equivalent Vehicle")
+    void serialize_ShouldMatchVehicleJson() throws Exception {
+        Vehicle vehicle = new Vehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, new BigDecimal("12000.10"), "gas");
+
+        assertEquals(objectMapper.writeValueAsString(vehicle), objectMapper.writeValueAsString(CompactVehicle.of(vehicle)));
+    }
+
+    @Test
+    @DisplayName("Should write cents with two fraction digits")
+    void serialize_ShouldWriteCentsAsDecimal() throws Exception {
+        assertTrue(json(5L).contains("\"purchasePrice\":0.05"));
+        assertTrue(json(100L).contains("\"purchasePrice\":1.00"));
+        assertTrue(json(2500050L).contains("\"purchasePrice\":25000.50"));
+        assertTrue(json(-199L).contains("\"purchasePrice\":-1.99"));
+    }
+
+    @Test
+    @DisplayName("purchasePrice() should restore the scale-2 BigDecimal")
+    void purchasePrice_ShouldConvertFromCents() {
+        assertEquals(new BigDecimal("25000.50"), new CompactVehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, 2500050L, "gas").purchasePrice());
+    }
+
+    @Test
+    @DisplayName("writeJson should write only the selected fields")
+    void writeJson_ShouldWriteSelectedFields() throws Exception {
+        CompactVehicle vehicle = new CompactVehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, 1200012L, "gas");
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            vehicle.writeJson(generator, VehicleField.parseList("purchasePrice,modelYear"));
+        }
+
+        assertEquals("{\"vin\":\"abcd\",\"modelYear\":2014,\"purchasePrice\":12000.12}", out.toString());
+    }
+
+    private String json(long cents) throws Exception {
+        return objectMapper.writeValueAsString(new CompactVehicle("abcd", "Toyota", "highlander", 5, "highlander", 2014, cents, "gas"));
+    }
+}